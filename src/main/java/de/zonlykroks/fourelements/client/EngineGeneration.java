@@ -0,0 +1,26 @@
+package de.zonlykroks.fourelements.client;
+
+import de.zonlykroks.fourelements.config.RuleDispatchTable;
+import net.fabricmc.fabric.api.renderer.v1.model.SpriteFinder;
+import net.minecraft.block.Block;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteAtlasTexture;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Everything chunk-builder threads need to resolve replacements: the block atlas and its sprite finder, the rules with
+ * their dispatch table, the pre-resolved sprites, the periodic tables built from both, the cache of rule indices and the
+ * budget of the replacement meshes baked for it.
+ * <p>
+ * A generation is never modified after it is built. Reloads build a new one and publish it through a single volatile
+ * reference, so a worker that reads the reference once per block never combines state from different reloads.
+ *
+ * @param id increases with every published generation; anything derived from sprite UVs is keyed by it
+ */
+record EngineGeneration(int id, @Nullable SpriteAtlasTexture atlas, @Nullable SpriteFinder spriteFinder,
+                        RuleDispatchTable dispatchTable, Sprite[] sprites,
+                        Map<Block, PeriodicLookupTable> periodicTables, ReplacementCache cache,
+                        MeshVariants.Budget meshBudget) {
+}
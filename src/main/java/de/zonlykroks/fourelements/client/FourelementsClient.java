@@ -3,13 +3,18 @@ package de.zonlykroks.fourelements.client;
 import de.zonlykroks.fourelements.config.ModConfig;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.model.loading.v1.ModelLoadingPlugin;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.event.registry.RegistryIdRemapCallback;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
+import net.minecraft.registry.Registries;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.text.Text;
@@ -18,6 +23,9 @@ import org.lwjgl.glfw.GLFW;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.List;
+
 public class FourelementsClient implements ClientModInitializer {
     private static final Logger LOGGER = LoggerFactory.getLogger("FourElements");
 
@@ -52,6 +60,12 @@ public class FourelementsClient implements ClientModInitializer {
                 return Identifier.of("fourelements", "resource_reload");
             }
 
+            @Override
+            public Collection<Identifier> getFabricDependencies() {
+                // Replacement sprites are resolved once per atlas, so wait until the models and their atlas are applied
+                return List.of(ResourceReloadListenerKeys.MODELS);
+            }
+
             @Override
             public void reload(ResourceManager manager) {
                 LOGGER.info("Resources reloaded, clearing texture replacement cache and reinitializing atlas");
@@ -62,9 +76,30 @@ public class FourelementsClient implements ClientModInitializer {
 
         ModelLoadingPlugin.register(new PositionAwareModelLoadingPlugin());
 
+        // Rule state bitsets are indexed by raw state id, which a registry remap changes
+        RegistryIdRemapCallback.event(Registries.BLOCK).register(state ->
+                TextureReplacementManager.getInstance().onBlockIdsRemapped());
+
+        // Tag targets can only be resolved once the registry's tags are bound; server-side tag loads
+        // (e.g. /reload on the integrated server) run on the server thread and do not affect the client's tags
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+            if (client) {
+                TextureReplacementManager.getInstance().onTagsLoaded();
+            }
+        });
+
+        // Keep the replacement cache limited to loaded chunks
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) ->
+                TextureReplacementManager.getInstance().onChunkLoaded(world, chunk));
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) ->
+                TextureReplacementManager.getInstance().onChunkUnloaded(world, chunk));
+
         // Handle keybinding press
         ClientLifecycleEvents.CLIENT_STARTED.register(client -> {
             net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents.END_CLIENT_TICK.register(c -> {
+                // Re-mesh sections that came within the replacement distance
+                TextureReplacementManager.getInstance().onClientTick(c);
+
                 while (cyclePresetKey.wasPressed()) {
                     String newPreset = ModConfig.getInstance().cyclePreset();
                     TextureReplacementManager.getInstance().reloadWithResourcePack();
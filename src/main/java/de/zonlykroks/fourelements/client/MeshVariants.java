@@ -0,0 +1,257 @@
+package de.zonlykroks.fourelements.client;
+
+import net.fabricmc.fabric.api.renderer.v1.Renderer;
+import net.fabricmc.fabric.api.renderer.v1.mesh.Mesh;
+import net.fabricmc.fabric.api.renderer.v1.mesh.MutableMesh;
+import net.fabricmc.fabric.api.renderer.v1.mesh.QuadEmitter;
+import net.fabricmc.fabric.api.renderer.v1.model.ModelHelper;
+import net.fabricmc.fabric.api.util.TriState;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.BlockModelPart;
+import net.minecraft.client.render.model.BlockStateModel;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Pre-baked replacement meshes of one wrapped model: for every (part, replacement sprite) pair the part's quads with
+ * their UVs already moved onto the replacement, split by cull face so culling still works per face.
+ * <p>
+ * Variants for the model's candidate rules are baked together with the model through {@link #preBake}, against the
+ * sprites of the atlas stitched for that bake, so the chunk builder normally only looks them up. Variants that were
+ * not baked then (parts a weighted model did not pick while sampling, rules loaded after the bake, or the bake budget
+ * running out) are baked the first time they are meshed and reused for the rest of the engine generation. Hits scan
+ * small arrays by identity and never lock. The number of variants is capped by a {@link Budget} per model bake and
+ * per generation; beyond that, callers emit the part's quads remapped on the fly through {@link #emitRemapped}.
+ */
+final class MeshVariants {
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    /** Random seeds tried to collect the parts a weighted model can pick. */
+    private static final int PART_SAMPLES = 8;
+
+    /** Baked with the model; keyed by sprite identity, so they stay valid for every generation using that atlas. */
+    private final Entry[] preBaked;
+    private volatile Snapshot snapshot = new Snapshot(-1, NO_ENTRIES);
+
+    MeshVariants() {
+        this(NO_ENTRIES);
+    }
+
+    private MeshVariants(Entry[] preBaked) {
+        this.preBaked = preBaked;
+    }
+
+    /**
+     * Bakes the variants of {@code model}'s vanilla parts for every sprite in {@code sprites}, as far as
+     * {@code budget} allows. Called while models are baked, before the model is used.
+     */
+    static MeshVariants preBake(BlockStateModel model, List<Sprite> sprites, Budget budget) {
+        if (sprites.isEmpty() || !PositionAwareBlockStateModel.isVanilla(model)) {
+            return new MeshVariants();
+        }
+
+        List<BlockModelPart> parts = new ArrayList<>();
+        List<BlockModelPart> sampled = new ArrayList<>();
+        for (int seed = 0; seed < PART_SAMPLES; seed++) {
+            sampled.clear();
+            model.addParts(Random.create(seed), sampled);
+            for (BlockModelPart part : sampled) {
+                if (PositionAwareBlockStateModel.isVanilla(part) && !containsIdentity(parts, part)) {
+                    parts.add(part);
+                }
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (BlockModelPart part : parts) {
+            for (Sprite sprite : sprites) {
+                if (!budget.tryReserve()) {
+                    return new MeshVariants(entries.toArray(NO_ENTRIES));
+                }
+                entries.add(new Entry(part, sprite, bake(part, sprite, budget)));
+            }
+        }
+        return new MeshVariants(entries.toArray(NO_ENTRIES));
+    }
+
+    private static boolean containsIdentity(List<BlockModelPart> parts, BlockModelPart part) {
+        for (BlockModelPart existing : parts) {
+            if (existing == part) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the meshes of {@code part} textured with {@code sprite}, indexed by {@link ModelHelper} face index
+     * ({@code null} where the part has no quads), or {@code null} if the generation's budget is exhausted.
+     */
+    Mesh @Nullable [] get(EngineGeneration engine, BlockModelPart part, Sprite sprite) {
+        for (Entry entry : preBaked) {
+            if (entry.part == part && entry.sprite == sprite) {
+                return entry.meshes;
+            }
+        }
+
+        Snapshot current = snapshot;
+        if (current.generation == engine.id()) {
+            for (Entry entry : current.entries) {
+                if (entry.part == part && entry.sprite == sprite) {
+                    return entry.meshes;
+                }
+            }
+        }
+
+        if (engine.meshBudget().isExhausted()) {
+            return null;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            Entry[] entries = current.generation == engine.id() ? current.entries : NO_ENTRIES;
+            for (Entry entry : entries) {
+                if (entry.part == part && entry.sprite == sprite) {
+                    return entry.meshes;
+                }
+            }
+
+            if (!engine.meshBudget().tryReserve()) {
+                return null;
+            }
+            Mesh[] meshes = bake(part, sprite, engine.meshBudget());
+
+            Entry[] grown = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, grown, 0, entries.length);
+            grown[entries.length] = new Entry(part, sprite, meshes);
+            snapshot = new Snapshot(engine.id(), grown);
+            return meshes;
+        }
+    }
+
+    /**
+     * Emits the quads the same way Fabric's default {@code BlockModelPart} emission does, with remapped UVs.
+     */
+    private static Mesh[] bake(BlockModelPart part, Sprite replacement, Budget budget) {
+        Mesh[] meshes = new Mesh[ModelHelper.NULL_FACE_ID + 1];
+        MutableMesh mesh = Renderer.get().mutableMesh();
+        TriState ambientOcclusion = ambientOcclusion(part);
+        int quadCount = 0;
+
+        for (int faceIndex = 0; faceIndex <= ModelHelper.NULL_FACE_ID; faceIndex++) {
+            Direction face = ModelHelper.faceFromIndex(faceIndex);
+            List<BakedQuad> quads = part.getQuads(face);
+            if (quads.isEmpty()) {
+                continue;
+            }
+
+            mesh.clear();
+            emitFace(mesh.emitter(), quads, face, ambientOcclusion, replacement);
+            meshes[faceIndex] = mesh.immutableCopy();
+            quadCount += quads.size();
+        }
+
+        budget.quads.add(quadCount);
+        return meshes;
+    }
+
+    /**
+     * Emits the quads of a vanilla part that pass {@code cullTest} directly into {@code emitter}, remapped onto
+     * {@code replacement}. Used once the budget is exhausted; the source sprite comes from each baked quad, so no
+     * sprite lookup is needed.
+     */
+    static void emitRemapped(QuadEmitter emitter, BlockModelPart part, Sprite replacement,
+                             Predicate<@Nullable Direction> cullTest) {
+        TriState ambientOcclusion = ambientOcclusion(part);
+        for (int faceIndex = 0; faceIndex <= ModelHelper.NULL_FACE_ID; faceIndex++) {
+            Direction face = ModelHelper.faceFromIndex(faceIndex);
+            if (!cullTest.test(face)) {
+                emitFace(emitter, part.getQuads(face), face, ambientOcclusion, replacement);
+            }
+        }
+    }
+
+    private static TriState ambientOcclusion(BlockModelPart part) {
+        return part.useAmbientOcclusion() ? TriState.DEFAULT : TriState.FALSE;
+    }
+
+    private static void emitFace(QuadEmitter emitter, List<BakedQuad> quads, @Nullable Direction face,
+                                 TriState ambientOcclusion, Sprite replacement) {
+        for (BakedQuad quad : quads) {
+            emitter.fromBakedQuad(quad);
+            emitter.cullFace(face);
+            emitter.ambientOcclusion(ambientOcclusion);
+            remap(emitter, quad.sprite(), replacement);
+            emitter.emit();
+        }
+    }
+
+    private static void remap(QuadEmitter emitter, Sprite source, Sprite target) {
+        if (source == target) {
+            return;
+        }
+        float scaleU = (target.getMaxU() - target.getMinU()) / (source.getMaxU() - source.getMinU());
+        float scaleV = (target.getMaxV() - target.getMinV()) / (source.getMaxV() - source.getMinV());
+        float offsetU = target.getMinU() - source.getMinU() * scaleU;
+        float offsetV = target.getMinV() - source.getMinV() * scaleV;
+        for (int i = 0; i < 4; i++) {
+            emitter.uv(i, emitter.u(i) * scaleU + offsetU, emitter.v(i) * scaleV + offsetV);
+        }
+    }
+
+    private record Snapshot(int generation, Entry[] entries) {
+    }
+
+    private record Entry(BlockModelPart part, Sprite sprite, Mesh[] meshes) {
+    }
+
+    /**
+     * Limits how many variants one model bake or engine generation bakes and tracks what they cost.
+     */
+    static final class Budget {
+        /** Rough size of one quad in a renderer mesh: 4 vertices of 8 ints plus a header. */
+        private static final int BYTES_PER_QUAD = 4 * (4 * 8 + 4);
+
+        private final int maximumVariants;
+        private final AtomicInteger variants = new AtomicInteger();
+        private final LongAdder quads = new LongAdder();
+
+        Budget(int maximumVariants) {
+            this.maximumVariants = maximumVariants;
+        }
+
+        boolean tryReserve() {
+            int current;
+            do {
+                current = variants.get();
+                if (current >= maximumVariants) {
+                    return false;
+                }
+            } while (!variants.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        boolean isExhausted() {
+            return variants.get() >= maximumVariants;
+        }
+
+        int variants() {
+            return variants.get();
+        }
+
+        long quads() {
+            return quads.sum();
+        }
+
+        long estimatedBytes() {
+            return quads() * BYTES_PER_QUAD;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package de.zonlykroks.fourelements.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time spent meshing replaced blocks, per emission path. Only recorded while cache stats are enabled, so the timer
+ * calls cost nothing otherwise.
+ */
+final class MeshingStats {
+    private final LongAdder prebakedBlocks = new LongAdder();
+    private final LongAdder prebakedNanos = new LongAdder();
+    private final LongAdder transformedBlocks = new LongAdder();
+    private final LongAdder transformedNanos = new LongAdder();
+
+    void recordPrebaked(long nanos) {
+        prebakedBlocks.increment();
+        prebakedNanos.add(nanos);
+    }
+
+    void recordTransformed(long nanos) {
+        transformedBlocks.increment();
+        transformedNanos.add(nanos);
+    }
+
+    long prebakedBlocks() {
+        return prebakedBlocks.sum();
+    }
+
+    long transformedBlocks() {
+        return transformedBlocks.sum();
+    }
+
+    /**
+     * Average microseconds per block meshed from pre-baked meshes, or 0 if there were none.
+     */
+    double prebakedMicros() {
+        return average(prebakedNanos.sum(), prebakedBlocks.sum());
+    }
+
+    /**
+     * Average microseconds per block meshed through the replacing quad transform, or 0 if there were none.
+     */
+    double transformedMicros() {
+        return average(transformedNanos.sum(), transformedBlocks.sum());
+    }
+
+    void reset() {
+        prebakedBlocks.reset();
+        prebakedNanos.reset();
+        transformedBlocks.reset();
+        transformedNanos.reset();
+    }
+
+    private static double average(long nanos, long blocks) {
+        return blocks == 0 ? 0 : nanos / 1000.0 / blocks;
+    }
+}
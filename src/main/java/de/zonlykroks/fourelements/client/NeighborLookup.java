@@ -0,0 +1,100 @@
+package de.zonlykroks.fourelements.client;
+
+import de.zonlykroks.fourelements.config.BlockStateLookup;
+import de.zonlykroks.fourelements.config.Neighborhood;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.client.render.chunk.ChunkRendererRegion;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockRenderView;
+
+/**
+ * Per-thread {@link BlockStateLookup} used while evaluating rules.
+ * <p>
+ * Reads go through one reused mutable position. While a section is being meshed, blocks of that section come straight
+ * from the {@link SectionBatch} snapshot. A {@link ChunkRendererRegion} only holds the section and its direct
+ * neighbors, so anything further away reads as air instead of failing inside the region.
+ */
+final class NeighborLookup implements BlockStateLookup {
+    private static final ThreadLocal<NeighborLookup> CURRENT = ThreadLocal.withInitial(NeighborLookup::new);
+    private static final BlockState OUTSIDE = Blocks.AIR.getDefaultState();
+    /** How far a chunk-builder region reaches beyond its section, in blocks. */
+    private static final int REGION_MARGIN = 16;
+
+    private final BlockPos.Mutable cursor = new BlockPos.Mutable();
+    private final Neighborhood neighborhood = new Neighborhood();
+    private BlockRenderView view;
+    private BlockState[] sectionStates;
+    private int originX;
+    private int originY;
+    private int originZ;
+    private long snapshotEpoch;
+
+    /**
+     * Returns this thread's lookup reading through {@code view} without a section snapshot. {@code snapshotEpoch} is
+     * the cache's invalidation epoch as of when the view's contents were taken.
+     */
+    static NeighborLookup of(BlockRenderView view, long snapshotEpoch) {
+        NeighborLookup lookup = CURRENT.get();
+        lookup.view = view;
+        lookup.sectionStates = null;
+        lookup.snapshotEpoch = snapshotEpoch;
+        return lookup;
+    }
+
+    /**
+     * Binds the lookup to a section rebuild. {@code states} is the section's snapshot in {@link SectionBatch#index}
+     * order, {@code originX/Y/Z} its minimum corner.
+     */
+    void bind(BlockRenderView view, long snapshotEpoch, BlockState[] states, int originX, int originY, int originZ) {
+        this.view = view;
+        this.snapshotEpoch = snapshotEpoch;
+        this.sectionStates = states;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+    }
+
+    /**
+     * Drops the view and snapshot once evaluation is done, so this thread does not keep a world or region reachable.
+     */
+    void release() {
+        view = null;
+        sectionStates = null;
+    }
+
+    /**
+     * The invalidation epoch of the blocks this lookup reads; see {@link ReplacementCache#putIfCurrent}.
+     */
+    long snapshotEpoch() {
+        return snapshotEpoch;
+    }
+
+    /**
+     * Scratch space for the neighbors of the block currently being evaluated on this lookup's thread.
+     */
+    Neighborhood neighborhood() {
+        return neighborhood;
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        BlockState[] states = sectionStates;
+        if (states != null) {
+            int localX = x - originX;
+            int localY = y - originY;
+            int localZ = z - originZ;
+            if (((localX | localY | localZ) & ~15) == 0) {
+                return states[localY << 8 | localZ << 4 | localX];
+            }
+            if (view instanceof ChunkRendererRegion && (outsideRegion(localX) || outsideRegion(localY) || outsideRegion(localZ))) {
+                return OUTSIDE;
+            }
+        }
+        return view.getBlockState(cursor.set(x, y, z));
+    }
+
+    private static boolean outsideRegion(int local) {
+        return local < -REGION_MARGIN || local >= 16 + REGION_MARGIN;
+    }
+}
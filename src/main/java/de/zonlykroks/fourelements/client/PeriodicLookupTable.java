@@ -0,0 +1,188 @@
+package de.zonlykroks.fourelements.client;
+
+import de.zonlykroks.fourelements.config.TextureReplacementRule;
+import net.minecraft.client.texture.Sprite;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Precomputed first-match result for a list of candidate rules whose conditions only look at the block's coordinates.
+ * <p>
+ * Each axis is split into intervals by the bounds of its range conditions, plus a bound at 0 for every {@code %}
+ * condition because Java's remainder is negative for negative coordinates. Inside one interval every condition on the
+ * axis depends only on the coordinate modulo the least common multiple of the axis' periods. The table holds the
+ * result for every (interval, residue) cell of every axis, so resolving a block is one table read.
+ */
+final class PeriodicLookupTable {
+    private static final int MAX_PERIOD = 1024;
+    private static final int MAX_CELLS = 1 << 16;
+
+    private final Axis x;
+    private final Axis y;
+    private final Axis z;
+    private final short[] results;
+
+    private PeriodicLookupTable(Axis x, Axis y, Axis z, short[] results) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.results = results;
+    }
+
+    int lookup(int blockX, int blockY, int blockZ) {
+        return results[(x.cell(blockX) * y.size() + y.cell(blockY)) * z.size() + z.cell(blockZ)];
+    }
+
+    int cellCount() {
+        return results.length;
+    }
+
+    /**
+     * Builds a table for the candidate rules of a block, or returns {@code null} if a usable candidate has
+     * non-positional conditions or the lattice would be too large.
+     */
+    static @Nullable PeriodicLookupTable build(List<TextureReplacementRule> rules, int[] candidates, Sprite[] sprites) {
+        List<TextureReplacementRule> usable = new ArrayList<>();
+        for (int ruleIndex : candidates) {
+            // Rules without a sprite never apply, so they neither block a table nor take part in it
+            if (sprites[ruleIndex] == null) {
+                continue;
+            }
+            TextureReplacementRule rule = rules.get(ruleIndex);
+            if (!rule.blockStateConditions().isEmpty() || !rule.neighborConditions().isEmpty()) {
+                return null;
+            }
+            usable.add(rule);
+        }
+
+        Axis x = Axis.of("x", usable);
+        Axis y = Axis.of("y", usable);
+        Axis z = Axis.of("z", usable);
+        if (x == null || y == null || z == null || (long) x.size() * y.size() * z.size() > MAX_CELLS) {
+            return null;
+        }
+
+        short[] results = new short[x.size() * y.size() * z.size()];
+        for (int cx = 0; cx < x.size(); cx++) {
+            for (int cy = 0; cy < y.size(); cy++) {
+                for (int cz = 0; cz < z.size(); cz++) {
+                    int index = (cx * y.size() + cy) * z.size() + cz;
+                    results[index] = ReplacementCache.NO_REPLACEMENT;
+
+                    long rx = x.representative(cx);
+                    long ry = y.representative(cy);
+                    long rz = z.representative(cz);
+                    if (rx == Long.MIN_VALUE || ry == Long.MIN_VALUE || rz == Long.MIN_VALUE) {
+                        // No coordinate falls into this cell
+                        continue;
+                    }
+
+                    for (int i = 0; i < candidates.length; i++) {
+                        int ruleIndex = candidates[i];
+                        if (sprites[ruleIndex] != null && matches(rules.get(ruleIndex), (int) rx, (int) ry, (int) rz)) {
+                            results[index] = (short) ruleIndex;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return new PeriodicLookupTable(x, y, z, results);
+    }
+
+    private static boolean matches(TextureReplacementRule rule, int x, int y, int z) {
+        for (TextureReplacementRule.PositionCondition condition : rule.positionConditions()) {
+            if (!condition.predicate().test(x, y, z)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Classification of one coordinate axis into {@code intervalStarts.length * period} cells.
+     */
+    private record Axis(int period, int[] intervalStarts) {
+        static @Nullable Axis of(String axis, List<TextureReplacementRule> rules) {
+            long period = 1;
+            TreeSet<Long> bounds = new TreeSet<>();
+
+            for (TextureReplacementRule rule : rules) {
+                for (TextureReplacementRule.PositionCondition condition : rule.positionConditions()) {
+                    if (!condition.axis().toLowerCase(Locale.ROOT).equals(axis)) {
+                        continue;
+                    }
+
+                    if (condition.operator().equals("%")) {
+                        long modulo = Math.abs((long) condition.modulo());
+                        period = period / gcd(period, modulo) * modulo;
+                        if (period > MAX_PERIOD) {
+                            return null;
+                        }
+                        bounds.add(0L);
+                    } else {
+                        long value = condition.value();
+                        switch (condition.operator()) {
+                            case "==" -> {
+                                bounds.add(value);
+                                bounds.add(value + 1);
+                            }
+                            case ">", "<=" -> bounds.add(value + 1);
+                            case "<", ">=" -> bounds.add(value);
+                            default -> {
+                                return null;
+                            }
+                        }
+                    }
+                }
+            }
+
+            bounds.removeIf(bound -> bound <= Integer.MIN_VALUE || bound > Integer.MAX_VALUE);
+            int[] starts = new int[bounds.size() + 1];
+            starts[0] = Integer.MIN_VALUE;
+            int i = 1;
+            for (long bound : bounds) {
+                starts[i++] = (int) bound;
+            }
+            return new Axis((int) period, starts);
+        }
+
+        int size() {
+            return intervalStarts.length * period;
+        }
+
+        int cell(int coordinate) {
+            int interval = 0;
+            while (interval + 1 < intervalStarts.length && coordinate >= intervalStarts[interval + 1]) {
+                interval++;
+            }
+            return interval * period + Math.floorMod(coordinate, period);
+        }
+
+        /**
+         * Returns a coordinate inside the cell, or {@link Long#MIN_VALUE} if the cell's interval is shorter than the
+         * period and contains no coordinate with that residue.
+         */
+        long representative(int cell) {
+            int interval = cell / period;
+            int residue = cell % period;
+            long start = intervalStarts[interval];
+            long end = interval + 1 < intervalStarts.length ? intervalStarts[interval + 1] - 1L : Integer.MAX_VALUE;
+            long candidate = start + Math.floorMod(residue - start, (long) period);
+            return candidate <= end ? candidate : Long.MIN_VALUE;
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+}
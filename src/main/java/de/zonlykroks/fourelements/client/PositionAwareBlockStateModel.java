@@ -1,7 +1,10 @@
 package de.zonlykroks.fourelements.client;
 
+import net.fabricmc.fabric.api.renderer.v1.mesh.Mesh;
 import net.fabricmc.fabric.api.renderer.v1.mesh.QuadEmitter;
 import net.fabricmc.fabric.api.renderer.v1.model.FabricBlockStateModel;
+import net.fabricmc.fabric.api.renderer.v1.model.ModelHelper;
+import net.fabricmc.fabric.api.renderer.v1.model.SpriteFinder;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.render.model.BlockModelPart;
 import net.minecraft.client.render.model.BlockStateModel;
@@ -12,30 +15,142 @@ import net.minecraft.util.math.random.Random;
 import net.minecraft.world.BlockRenderView;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 
-public record PositionAwareBlockStateModel(BlockStateModel wrapped) implements BlockStateModel, FabricBlockStateModel {
+public record PositionAwareBlockStateModel(BlockStateModel wrapped, MeshVariants meshVariants)
+        implements BlockStateModel, FabricBlockStateModel {
+    private static final ThreadLocal<List<BlockModelPart>> PARTS = ThreadLocal.withInitial(ArrayList::new);
+
+    public PositionAwareBlockStateModel(BlockStateModel wrapped) {
+        this(wrapped, new MeshVariants());
+    }
 
     @Override
     public void emitQuads(QuadEmitter emitter, BlockRenderView blockView, BlockPos pos, BlockState state,
                           Random random, Predicate<@Nullable Direction> cullTest) {
-        QuadEmitter wrappedEmitter = new TextureReplacingQuadEmitter(emitter, blockView, pos, state);
+        TextureReplacementManager manager = TextureReplacementManager.getInstance();
+        // One generation for the whole block, so rules, sprites and sprite finder always belong together
+        EngineGeneration engine = manager.engine();
+        SpriteFinder spriteFinder = engine.spriteFinder();
+
+        // The replacement only depends on (pos, state), so it is resolved once for all quads of the block
+        Sprite replacementSprite = spriteFinder != null
+                ? manager.getReplacementSprite(engine, blockView, pos, state)
+                : null;
+
+        if (replacementSprite == null) {
+            emitWrapped(emitter, blockView, pos, state, random, cullTest);
+            return;
+        }
+
+        MeshingStats meshingStats = manager.meshingStats();
+        long start = meshingStats != null ? System.nanoTime() : 0;
+
+        // Vanilla models only emit their parts' baked quads, so those can use pre-baked meshes
+        if (isVanilla(wrapped)) {
+            emitPrebaked(engine, emitter, replacementSprite, random, cullTest);
+            if (meshingStats != null) {
+                meshingStats.recordPrebaked(System.nanoTime() - start);
+            }
+            return;
+        }
+
+        TextureReplacingQuadTransform transform = TextureReplacingQuadTransform.acquire(replacementSprite,
+                spriteFinder, engine.id());
+        emitter.pushTransform(transform);
+        try {
+            emitWrapped(emitter, blockView, pos, state, random, cullTest);
+        } finally {
+            emitter.popTransform();
+            transform.release();
+        }
+        if (meshingStats != null) {
+            meshingStats.recordTransformed(System.nanoTime() - start);
+        }
+    }
+
+    private void emitPrebaked(EngineGeneration engine, QuadEmitter emitter, Sprite replacementSprite, Random random,
+                              Predicate<@Nullable Direction> cullTest) {
+        List<BlockModelPart> parts = PARTS.get();
+        parts.clear();
+        wrapped.addParts(random, parts);
+
+        for (BlockModelPart part : parts) {
+            boolean vanillaPart = isVanilla(part);
+            Mesh[] meshes = vanillaPart ? meshVariants.get(engine, part, replacementSprite) : null;
+            if (vanillaPart && meshes == null) {
+                // Past the mesh budget the quads are still known, so they are remapped from their own sprites
+                MeshVariants.emitRemapped(emitter, part, replacementSprite, cullTest);
+                continue;
+            }
+            if (meshes == null) {
+                TextureReplacingQuadTransform transform = TextureReplacingQuadTransform.acquire(replacementSprite,
+                        engine.spriteFinder(), engine.id());
+                emitter.pushTransform(transform);
+                try {
+                    part.emitQuads(emitter, cullTest);
+                } finally {
+                    emitter.popTransform();
+                    transform.release();
+                }
+                continue;
+            }
+
+            for (int faceIndex = 0; faceIndex <= ModelHelper.NULL_FACE_ID; faceIndex++) {
+                Mesh mesh = meshes[faceIndex];
+                if (mesh != null && !cullTest.test(ModelHelper.faceFromIndex(faceIndex))) {
+                    mesh.outputTo(emitter);
+                }
+            }
+        }
+        parts.clear();
+    }
+
+    /**
+     * Whether the object is a vanilla model or part, whose emission is fully determined by its baked quads.
+     */
+    static boolean isVanilla(Object model) {
+        return model.getClass().getName().startsWith("net.minecraft.");
+    }
 
+    private void emitWrapped(QuadEmitter emitter, BlockRenderView blockView, BlockPos pos, BlockState state,
+                             Random random, Predicate<@Nullable Direction> cullTest) {
         if (wrapped instanceof FabricBlockStateModel fabricModel) {
-            fabricModel.emitQuads(wrappedEmitter, blockView, pos, state, random, cullTest);
+            fabricModel.emitQuads(emitter, blockView, pos, state, random, cullTest);
         } else {
             final List<BlockModelPart> parts = wrapped.getParts(random);
 
             for (BlockModelPart part : parts) {
-                part.emitQuads(wrappedEmitter, cullTest);
+                part.emitQuads(emitter, cullTest);
             }
         }
     }
 
+    /**
+     * Blocks share geometry when the wrapped model's geometry is the same and they resolve to the same replacement.
+     * Returns {@code null} whenever the wrapped model's geometry cannot be keyed.
+     */
     @Override
     public @Nullable Object createGeometryKey(BlockRenderView blockView, BlockPos pos, BlockState state, Random random) {
-        return null;
+        Object wrappedKey = wrapped instanceof FabricBlockStateModel fabricModel
+                ? fabricModel.createGeometryKey(blockView, pos, state, random)
+                : null;
+        if (wrappedKey == null) {
+            return null;
+        }
+
+        TextureReplacementManager manager = TextureReplacementManager.getInstance();
+        EngineGeneration engine = manager.engine();
+        Sprite replacementSprite = engine.spriteFinder() != null
+                ? manager.getReplacementSprite(engine, blockView, pos, state)
+                : null;
+        // Without a replacement the quads are exactly the wrapped model's
+        return replacementSprite != null ? new GeometryKey(wrappedKey, replacementSprite) : wrappedKey;
+    }
+
+    private record GeometryKey(Object wrappedKey, Sprite replacementSprite) {
     }
 
     @Override
@@ -1,20 +1,81 @@
 package de.zonlykroks.fourelements.client;
 
+import de.zonlykroks.fourelements.config.RuleDispatchTable;
+import de.zonlykroks.fourelements.config.TextureReplacementRule;
 import net.fabricmc.fabric.api.client.model.loading.v1.ModelLoadingPlugin;
 import net.fabricmc.fabric.api.client.model.loading.v1.ModelModifier;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.model.Baker;
+import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.util.SpriteIdentifier;
+import net.minecraft.util.Atlases;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 public class PositionAwareModelLoadingPlugin implements ModelLoadingPlugin {
     private static final Logger LOGGER = LoggerFactory.getLogger("FourElements");
+    /** Stands in for rules whose replacement sprite is missing from the atlas. */
+    private static final Object MISSING = new Object();
 
     @Override
     public void initialize(Context pluginContext) {
         LOGGER.info("Initializing Position-Aware Model Loading Plugin");
 
+        // Wrapping is decided against the rules loaded at bake time; the manager re-bakes when they change
+        TextureReplacementManager manager = TextureReplacementManager.getInstance();
+        RuleDispatchTable dispatchTable = manager.onModelsBaking();
+        MeshVariants.Budget meshBudget = manager.bakedMeshBudget();
+        // Models bake in parallel; each rule's sprite is looked up once per bake
+        AtomicReferenceArray<Object> sprites = new AtomicReferenceArray<>(dispatchTable.rules().size());
+
         pluginContext.modifyBlockModelAfterBake().register(ModelModifier.WRAP_LAST_PHASE, (model, context) -> {
-            LOGGER.debug("Wrapping block model for state: {}", context.state());
-            return new PositionAwareBlockStateModel(model);
+            BlockState state = context.state();
+            if (!dispatchTable.targets(state)) {
+                return model;
+            }
+
+            LOGGER.debug("Wrapping block model for state: {}", state);
+            List<Sprite> candidates = candidateSprites(dispatchTable, state, context.baker(), sprites);
+            return new PositionAwareBlockStateModel(model, MeshVariants.preBake(model, candidates, meshBudget));
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * The distinct replacement sprites of the rules that accept {@code state}, from the atlas being baked against.
+     */
+    private static List<Sprite> candidateSprites(RuleDispatchTable dispatchTable, BlockState state, Baker baker,
+                                                 AtomicReferenceArray<Object> sprites) {
+        List<Sprite> candidates = new ArrayList<>();
+        int stateId = Block.getRawIdFromState(state);
+        for (int ruleIndex : dispatchTable.rulesFor(state.getBlock())) {
+            if (!dispatchTable.acceptsState(ruleIndex, state, stateId)) {
+                continue;
+            }
+
+            Object resolved = sprites.get(ruleIndex);
+            if (resolved == null) {
+                resolved = resolveSprite(dispatchTable.rules().get(ruleIndex), baker);
+                sprites.set(ruleIndex, resolved);
+            }
+            if (resolved instanceof Sprite sprite && !candidates.contains(sprite)) {
+                candidates.add(sprite);
+            }
+        }
+        return candidates;
+    }
+
+    private static Object resolveSprite(TextureReplacementRule rule, Baker baker) {
+        if (rule.parsedTextureId() == null) {
+            return MISSING;
+        }
+        Sprite sprite = baker.getSpriteGetter().get(new SpriteIdentifier(Atlases.BLOCKS, rule.parsedTextureId()),
+                () -> "fourelements replacement " + rule.parsedTextureId());
+        // Missing sprites are reported once the atlas is published
+        return sprite.getContents().getId().toString().contains("missingno") ? MISSING : sprite;
+    }
+}
@@ -0,0 +1,18 @@
+package de.zonlykroks.fourelements.client;
+
+import net.minecraft.block.BlockState;
+
+import java.util.function.Predicate;
+
+/**
+ * Implemented by chunk-builder regions through a mixin: checks a section's copied palette, so a rebuild can skip a
+ * section before reading any of its blocks.
+ */
+public interface RegionSectionStates {
+    /**
+     * Whether the section's palette has any state matching {@code predicate}. The palette may still list states that
+     * are no longer placed, so {@code true} is only a maybe; {@code false} is exact. Sections the region has no copy
+     * of report {@code true}.
+     */
+    boolean fourelements$mayContain(long sectionKey, Predicate<BlockState> predicate);
+}
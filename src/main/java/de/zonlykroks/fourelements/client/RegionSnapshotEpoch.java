@@ -0,0 +1,9 @@
+package de.zonlykroks.fourelements.client;
+
+/**
+ * Implemented by chunk-builder regions through a mixin: the replacement cache's invalidation epoch at the time the
+ * region copied its blocks. Results read from a region are only cached if their section was not invalidated since.
+ */
+public interface RegionSnapshotEpoch {
+    long fourelements$snapshotEpoch();
+}
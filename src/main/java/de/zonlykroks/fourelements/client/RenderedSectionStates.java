@@ -0,0 +1,18 @@
+package de.zonlykroks.fourelements.client;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by the chunk builder's section copies through a mixin: the section they were copied from and their copy
+ * of its block states.
+ */
+public interface RenderedSectionStates {
+    long fourelements$sectionKey();
+
+    /**
+     * The copied block states, or {@code null} if the section was empty.
+     */
+    @Nullable PalettedContainer<BlockState> fourelements$blockStates();
+}
@@ -0,0 +1,461 @@
+package de.zonlykroks.fourelements.client;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Bounded replacement cache shared by all chunk-builder threads, partitioned per chunk section.
+ * <p>
+ * Entries are keyed by a packed block position ({@code BlockPos.asLong()}) plus the raw block-state id and map to the
+ * index of the rule whose pre-resolved sprite applies, so lookups allocate nothing. Each section that had a lookup gets
+ * a {@link Partition}: a small open-addressing table from the block's index inside the section to its state and rule
+ * index, grown on demand, with optimistic reads through a {@link StampedLock}. Partitions are found through striped
+ * copy-on-write maps read through volatile references, so finding a partition never locks or writes shared memory;
+ * only creating and removing a partition copies one stripe under a lock. Partitions are dropped when their chunk
+ * unloads, so the cache follows the loaded area. If the total number of entries still exceeds the configured size,
+ * whole partitions are evicted with the CLOCK (second chance) policy: a hit marks the partition as referenced, and the
+ * clock hand skips referenced partitions once before evicting them.
+ * <p>
+ * Results that depend on neighboring blocks are cached as well and marked as such. {@link #invalidateAround} drops the
+ * entries within the rule set's neighbor radius of a changed block, and {@link #invalidateNeighborDependent} drops the
+ * neighbor-dependent entries near a newly loaded chunk while keeping purely positional results. A chunk rebuild may
+ * still be evaluating a snapshot taken before such an invalidation, so these results are stored through
+ * {@link #putIfCurrent} with the epoch of the snapshot they were read from, and are dropped if their own section was
+ * invalidated since; see {@link SectionEpochs}.
+ */
+final class ReplacementCache {
+    /** {@link #get} result when nothing is cached for the key. */
+    static final int MISS = -2;
+    /** Cached rule index for positions where no rule applies. */
+    static final int NO_REPLACEMENT = -1;
+    /** {@link #putIfCurrent} epoch of results that stay valid whatever changes around them. */
+    static final long ANY_EPOCH = -1;
+
+    private static final int STRIPES = 64;
+
+    /** Per stripe, the current map of section keys to partitions. Replaced, never modified, under {@link #lock}. */
+    private final AtomicReferenceArray<Long2ObjectOpenHashMap<Partition>> stripes = new AtomicReferenceArray<>(STRIPES);
+    /** Guards structural changes: the stripes, the clock and its hand. */
+    private final Object lock = new Object();
+    /** Partitions in insertion order, swept by the clock hand. */
+    private final List<Partition> clock = new ArrayList<>();
+    private int hand;
+
+    private final int maximumSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final SectionEpochs epochs;
+
+    ReplacementCache(int maximumSize, SectionEpochs epochs) {
+        this.maximumSize = Math.max(1, maximumSize);
+        this.epochs = epochs;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.set(i, new Long2ObjectOpenHashMap<>());
+        }
+    }
+
+    /**
+     * Returns the cached rule index for the packed position and raw state id, {@link #NO_REPLACEMENT} if the
+     * position is cached without a replacement, or {@link #MISS}.
+     */
+    int get(long pos, int stateId) {
+        Partition partition = partition(ChunkSectionPos.fromBlockPos(pos));
+        int index = partition != null ? partition.get(localIndex(pos), stateId + 1) : MISS;
+        if (index != MISS) {
+            if (!partition.referenced) {
+                partition.referenced = true;
+            }
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return index;
+    }
+
+    /**
+     * Caches the rule index, which fits a {@code short} since presets are limited to
+     * {@link de.zonlykroks.fourelements.config.TextureReplacementConfig#MAX_RULES} rules.
+     */
+    void put(long pos, int stateId, int ruleIndex) {
+        putIfCurrent(pos, stateId, ruleIndex, ANY_EPOCH);
+    }
+
+    /**
+     * Caches a result computed from a snapshot taken at {@code snapshotEpoch}, unless the position's section was
+     * invalidated since. {@link #ANY_EPOCH} caches unconditionally, for results that do not depend on other blocks.
+     */
+    void putIfCurrent(long pos, int stateId, int ruleIndex, long snapshotEpoch) {
+        long sectionKey = ChunkSectionPos.fromBlockPos(pos);
+        Partition partition = partition(sectionKey);
+        if (partition == null) {
+            partition = createPartition(sectionKey);
+        }
+        if (partition.put(localIndex(pos), stateId + 1, (short) ruleIndex, snapshotEpoch, epochs)
+                && size.incrementAndGet() > maximumSize) {
+            evict(partition);
+        }
+    }
+
+    /**
+     * Forgets the entries of every position within {@code radius} of the packed position, whatever state they were
+     * cached for.
+     */
+    void invalidateAround(long pos, int radius) {
+        int x = BlockPos.unpackLongX(pos);
+        int y = BlockPos.unpackLongY(pos);
+        int z = BlockPos.unpackLongZ(pos);
+        markSections(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    long neighbor = BlockPos.asLong(x + dx, y + dy, z + dz);
+                    Partition partition = partition(ChunkSectionPos.fromBlockPos(neighbor));
+                    if (partition != null) {
+                        partition.invalidate(localIndex(neighbor));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the neighbor-dependent entries of positions between {@code minX, minZ} and {@code maxX, maxZ}
+     * (inclusive), for sections between {@code bottomSectionY} (inclusive) and {@code topSectionY} (exclusive).
+     * Results that only depend on the position stay cached.
+     */
+    void invalidateNeighborDependent(int minX, int minZ, int maxX, int maxZ, int bottomSectionY, int topSectionY) {
+        markSections(minX, bottomSectionY << 4, minZ, maxX, (topSectionY << 4) - 1, maxZ);
+
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                int localMinX = Math.max(minX - (chunkX << 4), 0);
+                int localMaxX = Math.min(maxX - (chunkX << 4), 15);
+                int localMinZ = Math.max(minZ - (chunkZ << 4), 0);
+                int localMaxZ = Math.min(maxZ - (chunkZ << 4), 15);
+                for (int sectionY = bottomSectionY; sectionY < topSectionY; sectionY++) {
+                    Partition partition = partition(ChunkSectionPos.asLong(chunkX, sectionY, chunkZ));
+                    if (partition != null) {
+                        partition.invalidateNeighborDependent(localMinX, localMinZ, localMaxX, localMaxZ);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a new epoch and records it for every section overlapping the block box, before any entry is removed.
+     */
+    private void markSections(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        long epoch = epochs.advance();
+        for (int sectionX = minX >> 4; sectionX <= maxX >> 4; sectionX++) {
+            for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                for (int sectionZ = minZ >> 4; sectionZ <= maxZ >> 4; sectionZ++) {
+                    epochs.markInvalidated(ChunkSectionPos.asLong(sectionX, sectionY, sectionZ), epoch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the partitions of all sections of a chunk column between {@code bottomSectionY} (inclusive) and
+     * {@code topSectionY} (exclusive).
+     */
+    void dropColumn(int chunkX, int chunkZ, int bottomSectionY, int topSectionY) {
+        synchronized (lock) {
+            boolean dropped = false;
+            for (int sectionY = bottomSectionY; sectionY < topSectionY; sectionY++) {
+                Partition partition = removePartition(ChunkSectionPos.asLong(chunkX, sectionY, chunkZ));
+                if (partition != null) {
+                    release(partition);
+                    dropped = true;
+                }
+            }
+            if (dropped && clock.removeIf(Partition::isDropped)) {
+                hand = 0;
+            }
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int maximumSize() {
+        return maximumSize;
+    }
+
+    int partitionCount() {
+        int count = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            count += stripes.get(i).size();
+        }
+        return count;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    private Partition partition(long sectionKey) {
+        return stripes.get(stripe(sectionKey)).get(sectionKey);
+    }
+
+    private Partition createPartition(long sectionKey) {
+        synchronized (lock) {
+            int stripe = stripe(sectionKey);
+            Partition partition = stripes.get(stripe).get(sectionKey);
+            if (partition == null) {
+                partition = new Partition(sectionKey);
+                Long2ObjectOpenHashMap<Partition> copy = new Long2ObjectOpenHashMap<>(stripes.get(stripe));
+                copy.put(sectionKey, partition);
+                stripes.set(stripe, copy);
+                clock.add(partition);
+            }
+            return partition;
+        }
+    }
+
+    /**
+     * Removes the partition from its stripe. Must hold {@link #lock}.
+     */
+    private Partition removePartition(long sectionKey) {
+        int stripe = stripe(sectionKey);
+        Long2ObjectOpenHashMap<Partition> current = stripes.get(stripe);
+        if (!current.containsKey(sectionKey)) {
+            return null;
+        }
+        Long2ObjectOpenHashMap<Partition> copy = new Long2ObjectOpenHashMap<>(current);
+        Partition partition = copy.remove(sectionKey);
+        stripes.set(stripe, copy);
+        return partition;
+    }
+
+    private static int stripe(long sectionKey) {
+        return (int) HashCommon.mix(sectionKey) & (STRIPES - 1);
+    }
+
+    /**
+     * Evicts partitions other than {@code current} until the cache is back within its size.
+     */
+    private void evict(Partition current) {
+        synchronized (lock) {
+            // Bounded so that a cache consisting only of the current partition cannot spin
+            for (int steps = 0; size.get() > maximumSize && steps < clock.size() * 2; steps++) {
+                if (hand >= clock.size()) {
+                    hand = 0;
+                }
+                Partition partition = clock.get(hand);
+                if (partition == current || partition.referenced) {
+                    partition.referenced = false;
+                    hand++;
+                    continue;
+                }
+
+                clock.remove(hand);
+                removePartition(partition.sectionKey);
+                evictions.add(release(partition));
+            }
+        }
+    }
+
+    /**
+     * Marks a removed partition as dropped and takes its entries off the total. Returns the number of entries.
+     */
+    private int release(Partition partition) {
+        int entries = partition.drop();
+        size.addAndGet(-entries);
+        return entries;
+    }
+
+    private static int localIndex(long pos) {
+        return SectionBatch.index(BlockPos.unpackLongX(pos), BlockPos.unpackLongY(pos), BlockPos.unpackLongZ(pos));
+    }
+
+    /**
+     * Cached results of one section. Each entry is one long: the local index + 1 in the top 16 bits, a flag for
+     * neighbor-dependent results, the state id + 1 in the next 31 bits (flag and state are 0 once invalidated) and the
+     * rule index in the low 16 bits.
+     */
+    private static final class Partition {
+        private static final int INITIAL_CAPACITY = 16;
+        /** Twice the section volume, so a full section still has a load factor of 0.5. */
+        private static final int MAXIMUM_CAPACITY = SectionBatch.SECTION_VOLUME * 2;
+        private static final long NEIGHBOR_DEPENDENT = 1L << 47;
+        /** The flag and state bits, cleared to invalidate an entry. */
+        private static final long STATE_BITS = 0xFFFFFFFFL << 16;
+
+        private final long sectionKey;
+        private final StampedLock lock = new StampedLock();
+        private long[] entries = new long[INITIAL_CAPACITY];
+        private int size;
+        private boolean dropped;
+        volatile boolean referenced;
+
+        Partition(long sectionKey) {
+            this.sectionKey = sectionKey;
+        }
+
+        int get(int localIndex, int stateTag) {
+            long stamp = lock.tryOptimisticRead();
+            long entry = find(entries, localIndex);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    entry = find(entries, localIndex);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return entry != 0 && stateTag(entry) == stateTag ? (short) entry : MISS;
+        }
+
+        /**
+         * Stores the entry. Returns whether it took a new slot rather than replacing the entry of the same position.
+         */
+        boolean put(int localIndex, int stateTag, short value, long snapshotEpoch, SectionEpochs epochs) {
+            boolean neighborDependent = snapshotEpoch != ANY_EPOCH;
+            long stamp = lock.writeLock();
+            try {
+                // Checked under the lock invalidate takes, so the check and the store cannot straddle an invalidation
+                if (dropped || neighborDependent && !epochs.isCurrent(sectionKey, snapshotEpoch)) {
+                    return false;
+                }
+
+                long entry = (long) (localIndex + 1) << 48 | (neighborDependent ? NEIGHBOR_DEPENDENT : 0)
+                        | (stateTag & 0x7FFFFFFFL) << 16 | (value & 0xFFFFL);
+                int slot = slot(entries, localIndex);
+                if (entries[slot] != 0) {
+                    entries[slot] = entry;
+                    return false;
+                }
+
+                if ((size + 1) * 2 > entries.length && entries.length < MAXIMUM_CAPACITY) {
+                    grow();
+                    slot = slot(entries, localIndex);
+                }
+                entries[slot] = entry;
+                size++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void invalidate(int localIndex) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slot(entries, localIndex);
+                if (entries[slot] != 0) {
+                    // Keep the slot for the position, but let no state match it
+                    entries[slot] &= ~STATE_BITS;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Invalidates the neighbor-dependent entries whose local x and z lie within the given bounds (inclusive).
+         */
+        void invalidateNeighborDependent(int minX, int minZ, int maxX, int maxZ) {
+            long stamp = lock.writeLock();
+            try {
+                long[] entries = this.entries;
+                for (int slot = 0; slot < entries.length; slot++) {
+                    long entry = entries[slot];
+                    if ((entry & NEIGHBOR_DEPENDENT) == 0) {
+                        continue;
+                    }
+                    int localIndex = (int) (entry >>> 48) - 1;
+                    int x = localIndex & 15;
+                    int z = (localIndex >>> 4) & 15;
+                    if (x >= minX && x <= maxX && z >= minZ && z <= maxZ) {
+                        entries[slot] = entry & ~STATE_BITS;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int drop() {
+            long stamp = lock.writeLock();
+            try {
+                dropped = true;
+                return size;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean isDropped() {
+            return dropped;
+        }
+
+        private void grow() {
+            long[] old = entries;
+            long[] grown = new long[old.length * 2];
+            for (long entry : old) {
+                if (entry != 0) {
+                    grown[slot(grown, (int) (entry >>> 48) - 1)] = entry;
+                }
+            }
+            entries = grown;
+        }
+
+        /**
+         * Returns the entry for the local index, or 0. Bounded by the table length so that an optimistic read racing
+         * a writer cannot spin.
+         */
+        private static long find(long[] entries, int localIndex) {
+            int mask = entries.length - 1;
+            long key = localIndex + 1;
+            int slot = (localIndex * 0x9E3779B1 >>> 16) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long entry = entries[slot];
+                if (entry == 0 || entry >>> 48 == key) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the slot holding the local index, or the empty slot it would be inserted at.
+         */
+        private static int slot(long[] entries, int localIndex) {
+            int mask = entries.length - 1;
+            long key = localIndex + 1;
+            int slot = (localIndex * 0x9E3779B1 >>> 16) & mask;
+            while (entries[slot] != 0 && entries[slot] >>> 48 != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int stateTag(long entry) {
+            return (int) (entry >>> 16) & 0x7FFFFFFF;
+        }
+    }
+}
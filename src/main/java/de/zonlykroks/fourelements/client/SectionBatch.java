@@ -0,0 +1,142 @@
+package de.zonlykroks.fourelements.client;
+
+import de.zonlykroks.fourelements.config.RuleDispatchTable;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockRenderView;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Rule results for the chunk section a chunk-builder thread is currently meshing.
+ * <p>
+ * The first wrapped block of a section rebuild gathers the section's 4096 states and evaluates all of them through
+ * {@link TextureReplacementManager#evaluateSection}; every further block of the same rebuild is one array read.
+ * A rebuild is identified by its region view, so any new rebuild of the section starts a fresh batch. The view is only
+ * held weakly, so a finished rebuild's region copy is not kept alive by the thread that meshed it.
+ * <p>
+ * Before gathering, the region's copy of the section palette is checked against the states any rule can accept.
+ * Sections without such a state are not gathered at all and resolve every block to no replacement; so are sections
+ * beyond the replacement distance. Models are only wrapped for replaceable states, so this mostly catches models
+ * wrapped while tags were unresolved or for an earlier rule set that did not need a re-bake. A palette can still list
+ * states that are no longer placed, so while gathering, the distinct states are checked once more.
+ */
+final class SectionBatch {
+    static final int SECTION_VOLUME = 16 * 16 * 16;
+
+    private static final ThreadLocal<SectionBatch> CURRENT = ThreadLocal.withInitial(SectionBatch::new);
+
+    private final BlockState[] states = new BlockState[SECTION_VOLUME];
+    private final short[] results = new short[SECTION_VOLUME];
+    private final BlockPos.Mutable cursor = new BlockPos.Mutable();
+    private final NeighborLookup neighbors = new NeighborLookup();
+    private WeakReference<BlockRenderView> view = new WeakReference<>(null);
+    private EngineGeneration engine;
+    private long sectionKey;
+    private int distance;
+    /** Whether {@link #states} holds this section; sections that were skipped up front are not gathered. */
+    private boolean gathered;
+
+    private SectionBatch() {
+    }
+
+    /**
+     * Returns the rule index for the block at {@code pos} in the section rebuild {@code view} belongs to.
+     */
+    static int ruleIndex(TextureReplacementManager manager, EngineGeneration engine,
+                         BlockRenderView view, BlockPos pos, BlockState state) {
+        SectionBatch batch = CURRENT.get();
+        int sectionX = ChunkSectionPos.getSectionCoord(pos.getX());
+        int sectionY = ChunkSectionPos.getSectionCoord(pos.getY());
+        int sectionZ = ChunkSectionPos.getSectionCoord(pos.getZ());
+        long sectionKey = ChunkSectionPos.asLong(sectionX, sectionY, sectionZ);
+
+        if (batch.view.get() != view || batch.engine != engine || batch.sectionKey != sectionKey) {
+            batch.evaluate(manager, engine, view, sectionX, sectionY, sectionZ, sectionKey, true);
+        }
+
+        if (!batch.gathered) {
+            if (batch.distance > manager.replacementDistance(engine)
+                    || !isReplaceable(engine.dispatchTable(), state)) {
+                return ReplacementCache.NO_REPLACEMENT;
+            }
+            // Someone is meshing a replaceable state the region's palette does not have, so gather after all
+            batch.evaluate(manager, engine, view, sectionX, sectionY, sectionZ, sectionKey, false);
+        }
+
+        int index = index(pos.getX(), pos.getY(), pos.getZ());
+        if (batch.states[index] != state) {
+            // Someone is meshing a state that is not the one in the region snapshot
+            NeighborLookup neighbors = batch.neighbors;
+            neighbors.bind(view, manager.snapshotEpoch(view), batch.states,
+                    sectionX << 4, sectionY << 4, sectionZ << 4);
+            try {
+                return manager.resolveRuleIndex(engine, neighbors, pos, state, batch.distance);
+            } finally {
+                neighbors.release();
+            }
+        }
+        return batch.results[index];
+    }
+
+    private void evaluate(TextureReplacementManager manager, EngineGeneration engine, BlockRenderView view,
+                          int sectionX, int sectionY, int sectionZ, long sectionKey, boolean checkPalette) {
+        int originX = sectionX << 4;
+        int originY = sectionY << 4;
+        int originZ = sectionZ << 4;
+        this.view = new WeakReference<>(null);
+        this.distance = manager.sectionDistance(sectionX, sectionZ);
+
+        RuleDispatchTable dispatchTable = engine.dispatchTable();
+        // Sections beyond the replacement distance are meshed as if no rule existed
+        boolean inRange = distance <= manager.replacementDistance(engine);
+        this.gathered = inRange && !(checkPalette && view instanceof RegionSectionStates region
+                && !region.fourelements$mayContain(sectionKey, state -> isReplaceable(dispatchTable, state)));
+
+        boolean replaceable = false;
+        if (gathered) {
+            BlockState previous = null;
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                cursor.set(originX + (i & 15), originY + (i >>> 8), originZ + ((i >>> 4) & 15));
+                BlockState state = view.getBlockState(cursor);
+                states[i] = state;
+                // Sections are mostly long runs of the same state, so each run is checked once
+                if (!replaceable && state != previous) {
+                    replaceable = isReplaceable(dispatchTable, state);
+                    previous = state;
+                }
+            }
+        }
+
+        if (replaceable) {
+            neighbors.bind(view, manager.snapshotEpoch(view), states, originX, originY, originZ);
+            try {
+                manager.evaluateSection(engine, neighbors, originX, originY, originZ, states, results, distance);
+            } finally {
+                neighbors.release();
+            }
+        } else {
+            Arrays.fill(results, (short) ReplacementCache.NO_REPLACEMENT);
+        }
+
+        this.view = new WeakReference<>(view);
+        this.engine = engine;
+        this.sectionKey = sectionKey;
+    }
+
+    private static boolean isReplaceable(RuleDispatchTable dispatchTable, BlockState state) {
+        return state.getRenderType() == BlockRenderType.MODEL
+                && dispatchTable.isReplaceable(state, Block.getRawIdFromState(state));
+    }
+
+    /**
+     * Index of a block inside its section, in {@code y, z, x} order like vanilla's section storage.
+     */
+    static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+}
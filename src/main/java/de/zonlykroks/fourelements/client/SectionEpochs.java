@@ -0,0 +1,56 @@
+package de.zonlykroks.fourelements.client;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Invalidation clock shared by the replacement caches of all engine generations, so snapshots taken before a reload
+ * compare correctly against the new cache.
+ * <p>
+ * Every invalidation takes a new epoch from the clock and records it for the sections whose entries it drops.
+ * Chunk-builder regions are stamped with the clock when they copy their blocks, and a neighbor-dependent result read
+ * from a region is only cached if its own section was not invalidated after that stamp. Changes elsewhere do not
+ * affect it. Sections are tracked in a fixed table indexed by hash; two sections sharing a slot only cause an
+ * unnecessary rejection, never a stale store.
+ */
+final class SectionEpochs {
+    private static final int SLOTS = 4096;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray invalidated = new AtomicLongArray(SLOTS);
+
+    /**
+     * The epoch of the latest invalidation; blocks read now are as of this epoch.
+     */
+    long current() {
+        return clock.get();
+    }
+
+    /**
+     * Starts a new invalidation and returns its epoch.
+     */
+    long advance() {
+        return clock.incrementAndGet();
+    }
+
+    /**
+     * Records that entries of the section are invalidated at {@code epoch}. Must be called before the entries are
+     * invalidated or dropped, so a concurrent store either sees the epoch or stores before the entries are removed.
+     */
+    void markInvalidated(long sectionKey, long epoch) {
+        invalidated.accumulateAndGet(slot(sectionKey), epoch, Math::max);
+    }
+
+    /**
+     * Whether no entry of the section was invalidated after {@code snapshotEpoch}.
+     */
+    boolean isCurrent(long sectionKey, long snapshotEpoch) {
+        return invalidated.get(slot(sectionKey)) <= snapshotEpoch;
+    }
+
+    private static int slot(long sectionKey) {
+        return (int) HashCommon.mix(sectionKey) & (SLOTS - 1);
+    }
+}
@@ -1,44 +1,89 @@
 package de.zonlykroks.fourelements.client;
 
 import de.zonlykroks.fourelements.config.ModConfig;
+import de.zonlykroks.fourelements.config.Neighborhood;
+import de.zonlykroks.fourelements.config.NeighborhoodTable;
+import de.zonlykroks.fourelements.config.RuleDispatchTable;
 import de.zonlykroks.fourelements.config.TextureReplacementConfig;
 import de.zonlykroks.fourelements.config.TextureReplacementRule;
-import net.fabricmc.fabric.api.renderer.v1.model.SpriteFinder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockRenderType;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.chunk.ChunkRendererRegion;
 import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.Registries;
 import net.minecraft.util.Atlases;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.BlockRenderView;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TextureReplacementManager {
     private static final Logger LOGGER = LoggerFactory.getLogger("FourElements");
-    private static TextureReplacementManager instance;
+    /** Upper bound of pre-baked replacement meshes per model bake, and of those baked on demand per engine generation. */
+    private static final int MAX_MESH_VARIANTS = 16384;
+    /** Chunk columns re-meshed per tick after the camera moved across a replacement distance. */
+    private static final int REMESH_COLUMNS_PER_TICK = 8;
+    /** Ticks between background re-sorts of the rules' neighbor checks. */
+    private static final int REORDER_INTERVAL_TICKS = 200;
 
     private final TextureReplacementConfig config;
     private final ModConfig modConfig;
-    private SpriteAtlasTexture cachedAtlas;
-    private SpriteFinder cachedSpriteFinder;
-    private final Map<CacheKey, Sprite> spriteCache = new HashMap<>();
-    private int cacheHits = 0;
-    private int cacheMisses = 0;
+    private volatile RuleDispatchTable wrappedDispatchTable;
+    /** Budget of the replacement meshes baked together with the current models. */
+    private volatile MeshVariants.Budget bakedMeshBudget = new MeshVariants.Budget(MAX_MESH_VARIANTS);
+    /** The only state render threads read; replaced as a whole by {@link #publish}. */
+    private volatile EngineGeneration engine;
+    /** Guarded by {@code this}. */
+    private int generationCounter;
+    private final AtomicLong statsTicker = new AtomicLong();
+    /** Advanced by every invalidation of neighbor-dependent results; see {@link ReplacementCache#putIfCurrent}. */
+    private final SectionEpochs epochs = new SectionEpochs();
+    private final MeshingStats meshingStats = new MeshingStats();
+    /** Chunk the camera is in, or {@code null} without a world. Written on the render thread, read by workers. */
+    private volatile @Nullable ChunkPos cameraChunk;
+    /** Columns that came within a replacement distance and still need a re-mesh. Render thread only. */
+    private final LongLinkedOpenHashSet pendingRemesh = new LongLinkedOpenHashSet();
+    private final AtomicBoolean reorderRunning = new AtomicBoolean();
+    private int ticksUntilReorder = REORDER_INTERVAL_TICKS;
 
     private TextureReplacementManager() {
         this.config = new TextureReplacementConfig();
         this.modConfig = ModConfig.getInstance();
+        this.engine = new EngineGeneration(0, null, null, RuleDispatchTable.empty(), new Sprite[0], Map.of(),
+                new ReplacementCache(modConfig.getCacheSize(), epochs),
+                new MeshVariants.Budget(MAX_MESH_VARIANTS));
     }
 
     public static TextureReplacementManager getInstance() {
-        if (instance == null) {
-            instance = new TextureReplacementManager();
-        }
-        return instance;
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Lazily created on first access; class initialization makes this thread-safe without locking.
+     */
+    private static final class Holder {
+        private static final TextureReplacementManager INSTANCE = new TextureReplacementManager();
     }
 
     public void initialize() {
@@ -46,49 +91,68 @@ public class TextureReplacementManager {
 
         modConfig.load();
         config.load();
+        resolveSprites();
 
         LOGGER.info("Texture Replacement Manager initialized with {}",
                 config.getRules().size());
     }
 
-    public void initializeAtlas() {
-        if (cachedAtlas == null) {
-            MinecraftClient client = MinecraftClient.getInstance();
-            if (client.getAtlasManager() != null) {
-                this.cachedAtlas = client.getAtlasManager().getAtlasTexture(Atlases.BLOCKS);
-                this.cachedSpriteFinder = cachedAtlas.spriteFinder();
-                LOGGER.info("Atlas manager initialized");
-            }
+    private static SpriteAtlasTexture currentBlockAtlas() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client == null || client.getAtlasManager() == null) {
+            return null;
         }
+        return client.getAtlasManager().getAtlasTexture(Atlases.BLOCKS);
     }
 
     public void reload() {
         LOGGER.info("Reloading Texture Replacement Manager");
-        spriteCache.clear();
-        cacheHits = 0;
-        cacheMisses = 0;
 
         modConfig.load();
         config.load();
+        resolveSprites();
 
         LOGGER.info("Reloaded {} texture replacement rules",
                 config.getRules().size());
+
+        rebakeIfTargetsChanged();
+    }
+
+    /**
+     * Models are only wrapped for targeted blocks, so a target that was not wrapped needs a re-bake. Models baked
+     * before tags loaded are wrapped for every block, so once the tags resolve to fewer blocks they are re-baked once
+     * to unwrap the rest.
+     */
+    private void rebakeIfTargetsChanged() {
+        RuleDispatchTable wrapped = wrappedDispatchTable;
+        if (wrapped == null) {
+            return;
+        }
+
+        RuleDispatchTable current = config.getDispatchTable();
+        String reason = null;
+        if (!wrapped.coversTargetsOf(current)) {
+            reason = "Targeted blocks changed";
+        } else if (wrapped.hasUnresolvedTags() && !current.hasUnresolvedTags()
+                && current.targetedBlockCount() < Registries.BLOCK.size()) {
+            reason = "Tag targets resolved";
+        }
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (reason != null && client != null) {
+            LOGGER.info("{}, re-baking models", reason);
+            client.execute(client::reloadResources);
+        }
     }
 
     public void reloadWithResourcePack() {
         LOGGER.info("Full reload with resource pack refresh");
         MinecraftClient client = MinecraftClient.getInstance();
 
-        // Clear everything
-        spriteCache.clear();
-        cacheHits = 0;
-        cacheMisses = 0;
-        cachedAtlas = null;
-        cachedSpriteFinder = null;
-
-        // Reload configs
+        // Reload configs and drop the atlas until the resource reload publishes the new one
         modConfig.load();
         config.load();
+        publish(null, false);
 
         // Trigger full resource reload to pick up new textures
         if (client != null) {
@@ -103,53 +167,262 @@ public class TextureReplacementManager {
 
     public void clearCacheAndAtlas() {
         LOGGER.info("Clearing cache and reinitializing atlas");
-        spriteCache.clear();
-        cacheHits = 0;
-        cacheMisses = 0;
-        cachedAtlas = null;
-        cachedSpriteFinder = null;
+        publish(currentBlockAtlas(), false);
+    }
 
-        initializeAtlas();
+    /**
+     * Rebuilds the engine for the current rules against the current atlas. Sprites are only resolved again if the
+     * rules changed, so rebuilding for tags or a registry remap does not repeat missing-sprite warnings.
+     */
+    private void resolveSprites() {
+        publish(engine.atlas(), true);
     }
 
-    public SpriteFinder getSpriteFinder() {
-        return cachedSpriteFinder;
+    /**
+     * Builds a new {@link EngineGeneration} from the loaded rules and {@code atlas} and publishes it.
+     * Every rule's replacement sprite is resolved into a table indexed by rule id; missing sprites are stored as
+     * {@code null} and reported once here instead of on every lookup. With {@code reuseSprites}, the previous
+     * generation's sprites are kept if it has the same atlas and rule list. Cached results are rule indices, so every
+     * generation starts with a fresh cache (which also picks up a changed cache size).
+     * Synchronized so concurrent reloads publish one after another; readers never lock.
+     */
+    private synchronized void publish(SpriteAtlasTexture atlas, boolean reuseSprites) {
+        RuleDispatchTable dispatchTable = config.getDispatchTable();
+        List<TextureReplacementRule> rules = dispatchTable.rules();
+        EngineGeneration previous = this.engine;
+        Sprite[] sprites;
+
+        if (reuseSprites && previous.atlas() == atlas && previous.dispatchTable().rules() == rules) {
+            sprites = previous.sprites();
+        } else if (atlas != null) {
+            sprites = new Sprite[rules.size()];
+            int missing = 0;
+            for (int i = 0; i < sprites.length; i++) {
+                sprites[i] = rules.get(i).getReplacementSprite(atlas);
+                if (sprites[i] == null) {
+                    missing++;
+                }
+            }
+            LOGGER.info("Resolved replacement sprites for {} rules ({} missing)", sprites.length, missing);
+        } else {
+            sprites = new Sprite[rules.size()];
+        }
+
+        this.engine = new EngineGeneration(++generationCounter, atlas, atlas != null ? atlas.spriteFinder() : null,
+                dispatchTable, sprites, buildPeriodicTables(dispatchTable, sprites),
+                new ReplacementCache(modConfig.getCacheSize(), epochs),
+                new MeshVariants.Budget(MAX_MESH_VARIANTS));
+        statsTicker.set(0);
+        meshingStats.reset();
     }
 
-    private record CacheKey(BlockPos pos, BlockState state) {
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof CacheKey(BlockPos pos1, BlockState state1))) return false;
-            return pos.equals(pos1) && state.equals(state1);
+    /**
+     * Builds a {@link PeriodicLookupTable} for every block whose usable candidate rules only have position conditions.
+     * Blocks with the same candidate list share one table.
+     */
+    private static Map<Block, PeriodicLookupTable> buildPeriodicTables(RuleDispatchTable dispatchTable, Sprite[] sprites) {
+        Map<Block, PeriodicLookupTable> tables = new IdentityHashMap<>();
+        Map<List<Integer>, PeriodicLookupTable> byCandidates = new HashMap<>();
+        int cells = 0;
+
+        for (Block block : Registries.BLOCK) {
+            int[] candidates = dispatchTable.rulesFor(block);
+            if (candidates.length == 0) {
+                continue;
+            }
+
+            List<Integer> key = Arrays.stream(candidates).boxed().toList();
+            PeriodicLookupTable table = byCandidates.get(key);
+            if (table == null && !byCandidates.containsKey(key)) {
+                table = PeriodicLookupTable.build(dispatchTable.rules(), candidates, sprites);
+                byCandidates.put(key, table);
+                if (table != null) {
+                    cells += table.cellCount();
+                }
+            }
+            if (table != null) {
+                tables.put(block, table);
+            }
         }
 
-        @Override
-        public int hashCode() {
-            return 31 * pos.hashCode() + state.hashCode();
+        if (!tables.isEmpty()) {
+            LOGGER.info("Built periodic lookup tables for {} blocks ({} cells)", tables.size(), cells);
         }
+        return tables;
     }
 
-    public Sprite getReplacementSprite(BlockRenderView world, BlockPos pos, BlockState state, Sprite originalSprite) {
+    /**
+     * Called after the block registry was remapped, e.g. when joining a server. Raw state ids changed, so the
+     * per-state bitsets and everything keyed by state id are rebuilt.
+     */
+    public void onBlockIdsRemapped() {
+        LOGGER.info("Block registry remapped, rebuilding texture replacement state tables");
+        config.rebuildDispatchTable();
+        // The wrapped states are unchanged, but the table they were decided with is indexed by the old ids
+        RuleDispatchTable wrapped = wrappedDispatchTable;
+        if (wrapped != null) {
+            wrappedDispatchTable = wrapped.rebuild(wrapped.tagsBound());
+        }
+        resolveSprites();
+    }
+
+    /**
+     * Called when block tags were (re)loaded. Resolves {@code #namespace:tag} targets into the dispatch table.
+     */
+    public void onTagsLoaded() {
+        config.onTagsLoaded();
+        resolveSprites();
+        LOGGER.info("Block tags loaded, {} blocks targeted", config.getDispatchTable().targetedBlockCount());
+        rebakeIfTargetsChanged();
+    }
+
+    /**
+     * Called when block models are about to be baked. Returns the dispatch table the wrapping decisions
+     * are based on and remembers it so later rule reloads can tell whether a re-bake is needed.
+     */
+    public RuleDispatchTable onModelsBaking() {
+        RuleDispatchTable dispatchTable = config.getDispatchTable();
+        this.wrappedDispatchTable = dispatchTable;
+        this.bakedMeshBudget = new MeshVariants.Budget(MAX_MESH_VARIANTS);
+        return dispatchTable;
+    }
+
+    /**
+     * The budget for replacement meshes baked together with the models, started by {@link #onModelsBaking}.
+     */
+    MeshVariants.Budget bakedMeshBudget() {
+        return bakedMeshBudget;
+    }
+
+    /**
+     * The currently published engine. Callers should read it once and use that generation for the whole block.
+     */
+    EngineGeneration engine() {
+        return engine;
+    }
+
+    /**
+     * Resolves the replacement sprite for the block at {@code pos}, or {@code null} if no rule applies.
+     */
+    public Sprite getReplacementSprite(BlockRenderView world, BlockPos pos, BlockState state) {
+        return getReplacementSprite(engine, world, pos, state);
+    }
+
+    /**
+     * Resolves the replacement sprite for the block at {@code pos} within one engine generation, or {@code null}
+     * if no rule applies. Called once per rendered block; the result applies to all of its quads.
+     */
+    Sprite getReplacementSprite(EngineGeneration engine, BlockRenderView world, BlockPos pos, BlockState state) {
         if (world == null || pos == null || state == null) {
             return null;
         }
 
-        CacheKey key = new CacheKey(pos.toImmutable(), state);
+        // During chunk rebuilds the whole section is evaluated in one batch
+        int ruleIndex;
+        if (world instanceof ChunkRendererRegion) {
+            ruleIndex = SectionBatch.ruleIndex(this, engine, world, pos, state);
+        } else {
+            NeighborLookup neighbors = NeighborLookup.of(world, epochs.current());
+            try {
+                ruleIndex = resolveRuleIndex(engine, neighbors, pos, state, 0);
+            } finally {
+                neighbors.release();
+            }
+        }
 
-        if (spriteCache.containsKey(key)) {
-            if (modConfig.isEnableCacheStats()) {
-                cacheHits++;
+        return ruleIndex == ReplacementCache.NO_REPLACEMENT ? null : engine.sprites()[ruleIndex];
+    }
 
-                if ((cacheHits + cacheMisses) % 1000 == 0) {
-                    logCacheStats();
-                }
+    /**
+     * Evaluates every block of a 16x16x16 section. {@code states} holds the section's states in
+     * {@link SectionBatch#index} order; {@code results} receives the matching rule index per block, or
+     * {@link ReplacementCache#NO_REPLACEMENT}.
+     */
+    void evaluateSection(EngineGeneration engine, NeighborLookup neighbors, int originX, int originY, int originZ,
+                         BlockState[] states, short[] results, int distance) {
+        RuleDispatchTable dispatchTable = engine.dispatchTable();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int i = 0; i < states.length; i++) {
+            BlockState state = states[i];
+            // Only blocks rendered through a model can receive a replacement
+            if (state.getRenderType() != BlockRenderType.MODEL
+                    || !dispatchTable.isReplaceable(state, Block.getRawIdFromState(state))) {
+                results[i] = ReplacementCache.NO_REPLACEMENT;
+                continue;
             }
-            return spriteCache.get(key);
+
+            pos.set(originX + (i & 15), originY + (i >>> 8), originZ + ((i >>> 4) & 15));
+            results[i] = (short) resolveRuleIndex(engine, neighbors, pos, state, distance);
         }
+    }
 
-        if (modConfig.isEnableCacheStats()) {
-            cacheMisses++;
+    /**
+     * The invalidation epoch as of when {@code view}'s block states were copied. Chunk-builder regions remember the
+     * epoch they were created in; other views are read live, so the current epoch applies.
+     */
+    long snapshotEpoch(BlockRenderView view) {
+        return view instanceof RegionSnapshotEpoch region ? region.fourelements$snapshotEpoch() : epochs.current();
+    }
+
+    /**
+     * The current invalidation epoch, stamped onto chunk-builder regions when they are created.
+     */
+    public long currentInvalidationEpoch() {
+        return epochs.current();
+    }
+
+    /**
+     * The distance in chunks beyond which no rule of the generation applies, combining the configured replacement
+     * distance with the rules' own limits. {@link Integer#MAX_VALUE} if there is no limit.
+     */
+    int replacementDistance(EngineGeneration engine) {
+        int configured = modConfig.getReplacementDistance();
+        int rules = engine.dispatchTable().farthestRuleDistance();
+        return configured > 0 ? Math.min(configured, rules) : rules;
+    }
+
+    /**
+     * Horizontal distance in chunks between the camera and the section column, like vanilla's view distance.
+     * 0 while the camera position is unknown.
+     */
+    int sectionDistance(int sectionX, int sectionZ) {
+        ChunkPos camera = cameraChunk;
+        return camera != null ? Math.max(Math.abs(sectionX - camera.x), Math.abs(sectionZ - camera.z)) : 0;
+    }
+
+    /**
+     * Returns the index of the first rule that applies to the block, or {@link ReplacementCache#NO_REPLACEMENT}.
+     * Other blocks are read through {@code neighbors}; {@code distance} is the block's
+     * {@link #sectionDistance section distance} from the camera.
+     */
+    int resolveRuleIndex(EngineGeneration engine, NeighborLookup neighbors, BlockPos pos, BlockState state,
+                         int distance) {
+        RuleDispatchTable dispatchTable = engine.dispatchTable();
+        if (distance > replacementDistance(engine)) {
+            return ReplacementCache.NO_REPLACEMENT;
+        }
+        // Beyond the nearest rule limit the result depends on the distance, so neither tables nor the cache apply
+        boolean distanceLimited = distance > dispatchTable.nearestRuleDistance();
+
+        // Purely positional rules are answered by their lattice and never touch the cache
+        PeriodicLookupTable periodic = distanceLimited ? null : engine.periodicTables().get(state.getBlock());
+        if (periodic != null) {
+            return periodic.lookup(pos.getX(), pos.getY(), pos.getZ());
+        }
+
+        ReplacementCache cache = engine.cache();
+        long packedPos = pos.asLong();
+        int stateId = Block.getRawIdFromState(state);
+        if (!distanceLimited) {
+            int cached = cache.get(packedPos, stateId);
+            if (modConfig.isEnableCacheStats() && statsTicker.incrementAndGet() % 1000 == 0) {
+                logCacheStats();
+            }
+
+            if (cached != ReplacementCache.MISS) {
+                return cached;
+            }
         }
 
         if (modConfig.isEnableDebugLogging()) {
@@ -157,45 +430,232 @@ public class TextureReplacementManager {
                 state.getBlock().getTranslationKey(), pos, state);
         }
 
-        Sprite result = null;
-        boolean hasNeighborConditions = false;
+        List<TextureReplacementRule> rules = dispatchTable.rules();
+        Sprite[] sprites = engine.sprites();
+        int result = ReplacementCache.NO_REPLACEMENT;
+
+        // Neighbors are read at most once for all candidate rules
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+        NeighborhoodTable neighborhoodTable = dispatchTable.neighborhood();
+        Neighborhood neighborhood = neighbors.neighborhood();
+        neighborhood.reset(neighborhoodTable, neighbors, x, y, z);
+
+        for (int ruleIndex : dispatchTable.rulesFor(state.getBlock())) {
+            Sprite sprite = sprites[ruleIndex];
+            // A rule without a usable sprite can never apply, so its conditions need not be evaluated
+            if (sprite == null) {
+                continue;
+            }
 
-        for (TextureReplacementRule rule : config.getRules()) {
-            if (rule.matches(world, pos, state)) {
-                Sprite sprite = rule.getReplacementSprite(cachedAtlas);
+            if (!dispatchTable.acceptsState(ruleIndex, state, stateId)) {
+                continue;
+            }
 
-                if (sprite != null) {
-                    if (modConfig.isEnableDebugLogging()) {
-                        LOGGER.info("Applied texture replacement: {} -> {} at {}",
-                            originalSprite.getContents().getId(),
-                            sprite.getContents().getId(),
-                            pos);
-                    }
-                    result = sprite;
-                    hasNeighborConditions = rule.hasNeighborConditions();
-                    break;
+            TextureReplacementRule rule = rules.get(ruleIndex);
+            if (distanceLimited && !rule.withinDistance(distance)) {
+                continue;
+            }
+            if (rule.matchesPosition(x, y, z) && neighborhoodTable.matches(ruleIndex, neighborhood)) {
+                if (modConfig.isEnableDebugLogging()) {
+                    LOGGER.info("Applied texture replacement: {} -> {} at {}",
+                        state.getBlock().getTranslationKey(),
+                        sprite.getContents().getId(),
+                        pos);
                 }
+                result = ruleIndex;
+                break;
             }
         }
 
-        // Only cache results that don't depend on neighbors (to avoid stale cache on neighbor changes)
-        if (!hasNeighborConditions) {
-            int cacheSize = modConfig.getCacheSize();
-            if (spriteCache.size() < cacheSize) {
-                spriteCache.put(key, result);
-            }
+        // Neighbor-dependent results are cached too; onBlockChanged drops them when a neighbor changes, and results
+        // read from a snapshot older than that change are not stored
+        if (!distanceLimited) {
+            cache.putIfCurrent(packedPos, stateId, result,
+                    neighborhood.hasReadNeighbors() ? neighbors.snapshotEpoch() : ReplacementCache.ANY_EPOCH);
         }
 
         return result;
     }
 
+    /**
+     * Called on the render thread whenever a block changes in the client world. Drops cached results of every block
+     * whose rules may look at {@code pos}. The changed block's own entry needs no removal since its state id changed.
+     */
+    public void onBlockChanged(BlockPos pos) {
+        EngineGeneration engine = this.engine;
+        int radius = engine.dispatchTable().neighborRadius();
+        if (radius == 0) {
+            return;
+        }
+
+        engine.cache().invalidateAround(pos.asLong(), radius);
+        int x = pos.getX();
+        int y = pos.getY();
+        int z = pos.getZ();
+
+        // Vanilla only re-meshes the sections touching the changed block and its direct neighbors
+        if (radius > 1) {
+            MinecraftClient client = MinecraftClient.getInstance();
+            if (client != null && client.worldRenderer != null) {
+                client.worldRenderer.scheduleBlockRenders(x - radius, y - radius, z - radius,
+                        x + radius, y + radius, z + radius);
+            }
+        }
+    }
+
+    /**
+     * Called at the end of every client tick. Tracks the camera's chunk and, once the camera moved, re-meshes the
+     * columns that came within a replacement distance, a few per tick so moving does not cause a rebuild spike.
+     * Columns that moved out of range keep their replacements until vanilla re-meshes them.
+     */
+    public void onClientTick(MinecraftClient client) {
+        Entity camera = client.getCameraEntity();
+        if (client.world == null || camera == null) {
+            cameraChunk = null;
+            pendingRemesh.clear();
+            return;
+        }
+
+        ChunkPos current = camera.getChunkPos();
+        ChunkPos previous = cameraChunk;
+        if (!current.equals(previous)) {
+            cameraChunk = current;
+            if (previous != null) {
+                queueRemesh(previous, current);
+            }
+        }
+
+        ClientWorld world = client.world;
+        for (int i = 0; i < REMESH_COLUMNS_PER_TICK && !pendingRemesh.isEmpty(); i++) {
+            long column = pendingRemesh.removeFirstLong();
+            int blockX = ChunkPos.getPackedX(column) << 4;
+            int blockZ = ChunkPos.getPackedZ(column) << 4;
+            // Vanilla also re-meshes sections within one block of the box, so keep the box one block inside the column
+            client.worldRenderer.scheduleBlockRenders(blockX + 1, world.getBottomY() + 1, blockZ + 1,
+                    blockX + 14, world.getTopYInclusive() - 1, blockZ + 14);
+        }
+
+        if (modConfig.isAdaptiveRuleOrdering() && --ticksUntilReorder <= 0) {
+            ticksUntilReorder = REORDER_INTERVAL_TICKS;
+            scheduleReorder();
+        }
+    }
+
+    /**
+     * Re-sorts the neighbor checks of the current rules on a worker thread, unless a previous pass is still running.
+     */
+    private void scheduleReorder() {
+        if (!reorderRunning.compareAndSet(false, true)) {
+            return;
+        }
+        NeighborhoodTable neighborhood = engine.dispatchTable().neighborhood();
+        CompletableFuture.runAsync(neighborhood::reorder, Util.getMainWorkerExecutor())
+                .whenComplete((result, throwable) -> {
+                    reorderRunning.set(false);
+                    if (throwable != null) {
+                        LOGGER.error("Failed to reorder rule conditions", throwable);
+                    }
+                });
+    }
+
+    private void queueRemesh(ChunkPos previous, ChunkPos current) {
+        EngineGeneration engine = this.engine;
+        int configured = modConfig.getReplacementDistance();
+        int limit = replacementDistance(engine);
+
+        IntList thresholds = new IntArrayList();
+        if (configured > 0 && configured == limit) {
+            thresholds.add(configured);
+        }
+        for (int distance : engine.dispatchTable().ruleDistances()) {
+            if (distance <= limit) {
+                thresholds.add(distance);
+            }
+        }
+
+        for (int i = 0; i < thresholds.size(); i++) {
+            int threshold = thresholds.getInt(i);
+            for (int x = current.x - threshold; x <= current.x + threshold; x++) {
+                for (int z = current.z - threshold; z <= current.z + threshold; z++) {
+                    if (Math.max(Math.abs(x - previous.x), Math.abs(z - previous.z)) > threshold) {
+                        pendingRemesh.add(ChunkPos.toLong(x, z));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when the client unloads a chunk. Its cached results are dropped, so the cache only holds the loaded area.
+     */
+    public void onChunkUnloaded(ClientWorld world, WorldChunk chunk) {
+        ChunkPos chunkPos = chunk.getPos();
+        engine.cache().dropColumn(chunkPos.x, chunkPos.z, world.getBottomSectionCoord(),
+                world.getBottomSectionCoord() + world.countVerticalSections());
+    }
+
+    /**
+     * Called when the client loads a chunk. Vanilla re-meshes the neighboring chunks' border sections, whose cached
+     * neighbor-dependent results were computed while this chunk was missing. Only those results within the neighbor
+     * radius of the chunk are dropped; purely positional results stay cached.
+     */
+    public void onChunkLoaded(ClientWorld world, WorldChunk chunk) {
+        EngineGeneration engine = this.engine;
+        int radius = engine.dispatchTable().neighborRadius();
+        if (radius == 0) {
+            return;
+        }
+
+        ChunkPos chunkPos = chunk.getPos();
+        int bottom = world.getBottomSectionCoord();
+        engine.cache().invalidateNeighborDependent(chunkPos.getStartX() - radius, chunkPos.getStartZ() - radius,
+                chunkPos.getEndX() + radius, chunkPos.getEndZ() + radius, bottom, bottom + world.countVerticalSections());
+    }
+
+    /**
+     * Returns the meshing timers while cache stats are enabled, otherwise {@code null}.
+     */
+    @Nullable MeshingStats meshingStats() {
+        return modConfig.isEnableCacheStats() ? meshingStats : null;
+    }
+
     public void logCacheStats() {
         if (modConfig.isEnableCacheStats()) {
-            int total = cacheHits + cacheMisses;
+            ReplacementCache cache = engine.cache();
+            long hits = cache.hits();
+            long misses = cache.misses();
+            long total = hits + misses;
             if (total > 0) {
-                double hitRate = (double) cacheHits / total * 100;
-                LOGGER.info("Cache stats - Size: {}/{}, Hits: {}, Misses: {}, Hit rate: {}%",
-                    spriteCache.size(), modConfig.getCacheSize(), cacheHits, cacheMisses, String.format("%.2f", hitRate));
+                double hitRate = (double) hits / total * 100;
+                LOGGER.info("Cache stats - Size: {}/{} in {} sections, Hits: {}, Misses: {}, Evictions: {}, Hit rate: {}%",
+                    cache.size(), cache.maximumSize(), cache.partitionCount(), hits, misses, cache.evictions(),
+                    String.format("%.2f", hitRate));
+            }
+
+            MeshVariants.Budget bakedBudget = bakedMeshBudget;
+            MeshVariants.Budget meshBudget = engine.meshBudget();
+            if (bakedBudget.variants() + meshBudget.variants() > 0) {
+                LOGGER.info("Pre-baked meshes - With models: {} variants, {} quads, On demand: {} variants, {} quads, Estimated memory: {} KB",
+                    bakedBudget.variants(), bakedBudget.quads(), meshBudget.variants(), meshBudget.quads(),
+                    (bakedBudget.estimatedBytes() + meshBudget.estimatedBytes()) / 1024);
+            }
+
+            NeighborhoodTable neighborhood = engine.dispatchTable().neighborhood();
+            if (neighborhood.reorderPasses() > 0) {
+                long sampled = neighborhood.sampledEvaluations();
+                LOGGER.info("Rule ordering stats - Passes: {}, Rules reordered: {}, Sampled evaluations: {}, Rejection rate: {}%, Checks per evaluation: {} (file order: {})",
+                    neighborhood.reorderPasses(), neighborhood.reorderedRules(), sampled,
+                    String.format("%.2f", sampled > 0 ? (double) neighborhood.sampledRejections() / sampled * 100 : 0),
+                    String.format("%.2f", neighborhood.adaptiveOrderChecks()),
+                    String.format("%.2f", neighborhood.fileOrderChecks()));
+            }
+
+            if (meshingStats.prebakedBlocks() + meshingStats.transformedBlocks() > 0) {
+                LOGGER.info("Meshing stats - Pre-baked: {} blocks at {} us/block, Transformed: {} blocks at {} us/block",
+                    meshingStats.prebakedBlocks(), String.format("%.2f", meshingStats.prebakedMicros()),
+                    meshingStats.transformedBlocks(), String.format("%.2f", meshingStats.transformedMicros()));
             }
         }
     }
@@ -0,0 +1,66 @@
+package de.zonlykroks.fourelements.client;
+
+import net.fabricmc.fabric.api.renderer.v1.mesh.MutableQuadView;
+import net.fabricmc.fabric.api.renderer.v1.mesh.QuadTransform;
+import net.fabricmc.fabric.api.renderer.v1.model.SpriteFinder;
+import net.minecraft.client.texture.Sprite;
+
+/**
+ * Remaps the UVs of every quad emitted while it is pushed onto an emitter onto a replacement sprite that was resolved
+ * once for the whole block. Only used for modded models and parts, whose quads are not known up front; the sprite a
+ * quad was textured with is looked up through the {@link SpriteFinder}. Vanilla parts never get here, since their
+ * baked quads already name their sprite.
+ * <p>
+ * Instances are pooled per chunk-builder thread through {@link #acquire} and re-targeted for every block, so
+ * meshing does not allocate a transform per block.
+ */
+final class TextureReplacingQuadTransform implements QuadTransform {
+    private static final ThreadLocal<TextureReplacingQuadTransform> POOL =
+            ThreadLocal.withInitial(TextureReplacingQuadTransform::new);
+
+    private final UvRemapCache remapCache = new UvRemapCache();
+    private Sprite replacementSprite;
+    private SpriteFinder spriteFinder;
+
+    private TextureReplacingQuadTransform() {
+    }
+
+    /**
+     * Returns this thread's transform re-targeted at {@code replacementSprite}. Must be paired with {@link #release()}.
+     */
+    static TextureReplacingQuadTransform acquire(Sprite replacementSprite, SpriteFinder spriteFinder,
+                                                 int atlasGeneration) {
+        TextureReplacingQuadTransform transform = POOL.get();
+        if (transform.replacementSprite != null) {
+            // A wrapped model emitting another wrapped model on the same thread; don't clobber the outer block
+            transform = new TextureReplacingQuadTransform();
+        }
+        transform.replacementSprite = replacementSprite;
+        transform.spriteFinder = spriteFinder;
+        transform.remapCache.validate(atlasGeneration);
+        return transform;
+    }
+
+    void release() {
+        replacementSprite = null;
+        spriteFinder = null;
+    }
+
+    @Override
+    public boolean transform(MutableQuadView quad) {
+        Sprite currentSprite = spriteFinder.find(quad);
+        if (replacementSprite != currentSprite) {
+            int offset = remapCache.lookup(currentSprite, replacementSprite);
+            float[] coefficients = remapCache.coefficients();
+            float scaleU = coefficients[offset];
+            float offsetU = coefficients[offset + 1];
+            float scaleV = coefficients[offset + 2];
+            float offsetV = coefficients[offset + 3];
+
+            for (int i = 0; i < 4; i++) {
+                quad.uv(i, quad.u(i) * scaleU + offsetU, quad.v(i) * scaleV + offsetV);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package de.zonlykroks.fourelements.client;
+
+import net.minecraft.client.texture.Sprite;
+
+import java.util.Arrays;
+
+/**
+ * Small direct-mapped cache of the affine UV transform from a source sprite onto a replacement sprite.
+ * <p>
+ * Remapping a coordinate with the cached coefficients is a single multiply-add instead of normalizing against the
+ * source bounds and scaling into the replacement bounds. Not thread-safe; every chunk-builder thread owns one through
+ * its pooled {@link TextureReplacingQuadTransform}. Entries are dropped whenever the atlas generation changes.
+ */
+final class UvRemapCache {
+    private static final int SIZE = 64;
+
+    private final Sprite[] sources = new Sprite[SIZE];
+    private final Sprite[] targets = new Sprite[SIZE];
+    /** Per slot: scaleU, offsetU, scaleV, offsetV. */
+    private final float[] coefficients = new float[SIZE * 4];
+    private int atlasGeneration = -1;
+
+    void validate(int atlasGeneration) {
+        if (this.atlasGeneration != atlasGeneration) {
+            Arrays.fill(sources, null);
+            Arrays.fill(targets, null);
+            this.atlasGeneration = atlasGeneration;
+        }
+    }
+
+    /**
+     * Returns the offset of the coefficients for the sprite pair in {@link #coefficients()}, computing them on a miss.
+     */
+    int lookup(Sprite source, Sprite target) {
+        int slot = (System.identityHashCode(source) * 31 + System.identityHashCode(target)) & (SIZE - 1);
+        int offset = slot * 4;
+        if (sources[slot] != source || targets[slot] != target) {
+            float scaleU = (target.getMaxU() - target.getMinU()) / (source.getMaxU() - source.getMinU());
+            float scaleV = (target.getMaxV() - target.getMinV()) / (source.getMaxV() - source.getMinV());
+            coefficients[offset] = scaleU;
+            coefficients[offset + 1] = target.getMinU() - source.getMinU() * scaleU;
+            coefficients[offset + 2] = scaleV;
+            coefficients[offset + 3] = target.getMinV() - source.getMinV() * scaleV;
+            sources[slot] = source;
+            targets[slot] = target;
+        }
+        return offset;
+    }
+
+    float[] coefficients() {
+        return coefficients;
+    }
+}
@@ -0,0 +1,11 @@
+package de.zonlykroks.fourelements.config;
+
+import net.minecraft.block.BlockState;
+
+/**
+ * Read access to block states by coordinates, so conditions can look at other blocks without allocating positions.
+ */
+@FunctionalInterface
+public interface BlockStateLookup {
+    BlockState getBlockState(int x, int y, int z);
+}
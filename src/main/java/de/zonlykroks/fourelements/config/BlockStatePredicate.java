@@ -0,0 +1,61 @@
+package de.zonlykroks.fourelements.config;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.state.property.Property;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A {@code property == value} check compiled at load time. For every registered block the named {@link Property}
+ * and the value matching the configured string are looked up once, so a test is a map lookup and an equality check.
+ * Values match case-insensitively against their string form, like the uncompiled check did.
+ */
+public final class BlockStatePredicate {
+    private static final Match NO_MATCH = new Match(null, null);
+
+    private final String property;
+    private final String value;
+    private final Map<Block, Match> matchesByBlock = new IdentityHashMap<>();
+
+    private BlockStatePredicate(String property, String value) {
+        this.property = property;
+        this.value = value;
+    }
+
+    public static BlockStatePredicate compile(String property, String value) {
+        BlockStatePredicate predicate = new BlockStatePredicate(property, value);
+        for (Block block : Registries.BLOCK) {
+            predicate.matchesByBlock.put(block, predicate.resolve(block));
+        }
+        return predicate;
+    }
+
+    private Match resolve(Block block) {
+        Property<?> prop = block.getStateManager().getProperty(property);
+        if (prop == null) {
+            return NO_MATCH;
+        }
+        for (Object candidate : prop.getValues()) {
+            if (candidate.toString().equalsIgnoreCase(value)) {
+                return new Match(prop, candidate);
+            }
+        }
+        return NO_MATCH;
+    }
+
+    public boolean test(BlockState state) {
+        Match match = matchesByBlock.get(state.getBlock());
+        if (match == null) {
+            // Block registered after compilation
+            match = resolve(state.getBlock());
+        }
+        return match.property != null && state.get(match.property).equals(match.value);
+    }
+
+    private record Match(@Nullable Property<?> property, @Nullable Object value) {
+    }
+}
@@ -27,6 +27,9 @@ public class ModConfig {
     private int cacheSize = 4096;
     private boolean enableCacheStats = false;
     private boolean enableDebugLogging = false;
+    /** Chunks from the camera beyond which sections are meshed without replacements, 0 for no limit. */
+    private int replacementDistance = 0;
+    private boolean adaptiveRuleOrdering = false;
 
     private ModConfig() {
     }
@@ -74,6 +77,12 @@ public class ModConfig {
                 if (root.has("enableDebugLogging")) {
                     enableDebugLogging = root.get("enableDebugLogging").getAsBoolean();
                 }
+                if (root.has("replacementDistance")) {
+                    replacementDistance = Math.max(0, root.get("replacementDistance").getAsInt());
+                }
+                if (root.has("adaptiveRuleOrdering")) {
+                    adaptiveRuleOrdering = root.get("adaptiveRuleOrdering").getAsBoolean();
+                }
 
                 LOGGER.info("Loaded mod config - Preset: {}, Cache size: {}", selectedPreset, cacheSize);
             }
@@ -89,6 +98,8 @@ public class ModConfig {
             root.addProperty("cacheSize", cacheSize);
             root.addProperty("enableCacheStats", enableCacheStats);
             root.addProperty("enableDebugLogging", enableDebugLogging);
+            root.addProperty("replacementDistance", replacementDistance);
+            root.addProperty("adaptiveRuleOrdering", adaptiveRuleOrdering);
 
             Files.writeString(MOD_CONFIG_FILE, GSON.toJson(root));
             LOGGER.info("Saved mod config");
@@ -180,6 +191,22 @@ public class ModConfig {
         this.enableDebugLogging = enableDebugLogging;
     }
 
+    public int getReplacementDistance() {
+        return replacementDistance;
+    }
+
+    public void setReplacementDistance(int replacementDistance) {
+        this.replacementDistance = Math.max(0, replacementDistance);
+    }
+
+    public boolean isAdaptiveRuleOrdering() {
+        return adaptiveRuleOrdering;
+    }
+
+    public void setAdaptiveRuleOrdering(boolean adaptiveRuleOrdering) {
+        this.adaptiveRuleOrdering = adaptiveRuleOrdering;
+    }
+
     private void createDefaultPresets() {
         try {
             // Create "example_preset1" preset
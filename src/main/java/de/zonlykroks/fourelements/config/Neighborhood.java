@@ -0,0 +1,103 @@
+package de.zonlykroks.fourelements.config;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+import java.util.Arrays;
+
+/**
+ * The neighbors of one block as seen by a {@link NeighborhoodTable}: slot states are read on first use and every check
+ * is evaluated at most once, however many rules contain it. Not thread-safe; keep one per thread and
+ * {@link #reset} it for every block.
+ */
+public final class Neighborhood {
+    private BlockStateLookup lookup;
+    private int x;
+    private int y;
+    private int z;
+    private int stamp;
+    private int sampleCounter;
+    private boolean readNeighbors;
+
+    private int[] slotStamps = new int[0];
+    private int[] slotStateIds = new int[0];
+    private BlockState[] slotStates = new BlockState[0];
+    private int[] checkStamps = new int[0];
+    private boolean[] checkResults = new boolean[0];
+
+    /**
+     * Points this neighborhood at the block at {@code x, y, z}, reading neighbors through {@code lookup}.
+     */
+    public void reset(NeighborhoodTable table, BlockStateLookup lookup, int x, int y, int z) {
+        this.lookup = lookup;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.readNeighbors = false;
+
+        if (slotStamps.length < table.slotCount()) {
+            slotStamps = new int[table.slotCount()];
+            slotStateIds = new int[table.slotCount()];
+            slotStates = new BlockState[table.slotCount()];
+        }
+        if (checkStamps.length < table.checkCount()) {
+            checkStamps = new int[table.checkCount()];
+            checkResults = new boolean[table.checkCount()];
+        }
+
+        if (++stamp == 0) {
+            // Stamps wrapped around, forget everything explicitly
+            Arrays.fill(slotStamps, 0);
+            Arrays.fill(checkStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Whether the current evaluation should be profiled; true for one in {@code interval} calls on this thread.
+     * {@code interval} must be a power of two.
+     */
+    boolean sample(int interval) {
+        return (++sampleCounter & (interval - 1)) == 0;
+    }
+
+    /**
+     * Whether the slot's state was already read for the current block.
+     */
+    boolean isRead(int slot) {
+        return slotStamps[slot] == stamp;
+    }
+
+    /**
+     * Whether any other block was read since the last {@link #reset}, i.e. whether the result depends on neighbors.
+     */
+    public boolean hasReadNeighbors() {
+        return readNeighbors;
+    }
+
+    boolean check(NeighborhoodTable table, int checkIndex) {
+        if (checkStamps[checkIndex] == stamp) {
+            return checkResults[checkIndex];
+        }
+
+        NeighborhoodTable.Check check = table.check(checkIndex);
+        int slot = check.slot();
+        if (slotStamps[slot] != stamp) {
+            BlockState state = lookup.getBlockState(x + table.offsetX(slot), y + table.offsetY(slot), z + table.offsetZ(slot));
+            slotStates[slot] = state;
+            slotStateIds[slot] = Block.getRawIdFromState(state);
+            slotStamps[slot] = stamp;
+            readNeighbors = true;
+        }
+
+        int stateId = slotStateIds[slot];
+        boolean result = stateId >= 0 && stateId < table.stateCount()
+                ? (check.states()[stateId >>> 6] & 1L << stateId) != 0
+                // State registered after the table was built
+                : check.fallback().test(slotStates[slot]);
+
+        checkStamps[checkIndex] = stamp;
+        checkResults[checkIndex] = result;
+        return result;
+    }
+}
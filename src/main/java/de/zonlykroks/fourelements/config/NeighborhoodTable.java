@@ -0,0 +1,341 @@
+package de.zonlykroks.fourelements.config;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.Direction;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * The neighbor and offset block-state conditions of all rules, compiled against the global block-state ids.
+ * <p>
+ * Every distinct offset the rules look at becomes a slot of a {@link Neighborhood}, so each neighbor is read at most
+ * once per block no matter how many conditions look at it. Every distinct (offset, condition) pair becomes a check
+ * whose accepted states are a bitset over {@link Block#STATE_IDS}, evaluated at most once per block and shared by all
+ * rules that contain it. A rule then only combines the results of its checks.
+ * <p>
+ * With adaptive rule ordering enabled, a sample of rule evaluations runs every check of the rule and records per check
+ * how often it rejects and how often it has to read its neighbor. {@link #reorder} then sorts each rule's checks so the
+ * cheap checks most likely to reject run first. A rule matches only if all its checks pass, so the order of its checks
+ * never changes its result, and rules themselves are still tried in file order.
+ */
+public final class NeighborhoodTable {
+    private static final int[] NO_CHECKS = new int[0];
+    /** One in this many rule evaluations per thread is profiled. */
+    private static final int SAMPLE_INTERVAL = 16;
+    /** Relative cost of reading a neighbor compared to testing a state bit. */
+    private static final double READ_COST = 8;
+
+    private final int[] slotOffsetX;
+    private final int[] slotOffsetY;
+    private final int[] slotOffsetZ;
+    private final Check[] checks;
+    private final int[][] checksByRule;
+    private final int stateCount;
+
+    /** Per rule, the order its checks are evaluated in; a permutation of {@link #checksByRule}. */
+    private volatile int[][] orderedChecksByRule;
+    private final AtomicLongArray checkSamples;
+    private final AtomicLongArray checkRejections;
+    private final AtomicLongArray checkReads;
+    private final AtomicLongArray ruleSamples;
+    private final AtomicLongArray ruleRejections;
+    private int reorderPasses;
+    private int reorderedRules;
+    private double fileOrderChecks;
+    private double adaptiveOrderChecks;
+
+    private NeighborhoodTable(List<int[]> slotOffsets, Check[] checks, int[][] checksByRule, int stateCount) {
+        this.slotOffsetX = slotOffsets.stream().mapToInt(offset -> offset[0]).toArray();
+        this.slotOffsetY = slotOffsets.stream().mapToInt(offset -> offset[1]).toArray();
+        this.slotOffsetZ = slotOffsets.stream().mapToInt(offset -> offset[2]).toArray();
+        this.checks = checks;
+        this.checksByRule = checksByRule;
+        this.stateCount = stateCount;
+        this.orderedChecksByRule = checksByRule;
+        this.checkSamples = new AtomicLongArray(checks.length);
+        this.checkRejections = new AtomicLongArray(checks.length);
+        this.checkReads = new AtomicLongArray(checks.length);
+        this.ruleSamples = new AtomicLongArray(checksByRule.length);
+        this.ruleRejections = new AtomicLongArray(checksByRule.length);
+    }
+
+    static NeighborhoodTable build(List<TextureReplacementRule> rules, int stateCount) {
+        Map<String, Integer> slotsByOffset = new HashMap<>();
+        Map<String, long[]> statesByCondition = new HashMap<>();
+        Map<String, Integer> checksByKey = new HashMap<>();
+        List<int[]> slotOffsets = new ArrayList<>();
+        List<Check> checks = new ArrayList<>();
+        int[][] checksByRule = new int[rules.size()][];
+
+        for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+            TextureReplacementRule rule = rules.get(ruleIndex);
+            List<Integer> ruleChecks = new ArrayList<>();
+
+            for (TextureReplacementRule.BlockStateCondition condition : rule.blockStateConditions()) {
+                if (condition.isOwnPosition()) {
+                    continue;
+                }
+                String key = "state|" + condition.property() + "=" + condition.value();
+                int[] offset = offset(condition.direction(), condition.offsetX(), condition.offsetY(), condition.offsetZ());
+                ruleChecks.add(check(key, offset, condition::test, stateCount,
+                        slotsByOffset, slotOffsets, statesByCondition, checksByKey, checks));
+            }
+
+            for (TextureReplacementRule.NeighborCondition condition : rule.neighborConditions()) {
+                StringBuilder key = new StringBuilder("neighbor|").append(condition.targetBlock());
+                for (TextureReplacementRule.BlockStateCondition stateCondition : condition.blockStateConditions()) {
+                    key.append('|').append(stateCondition.property()).append('=').append(stateCondition.value());
+                }
+                int[] offset = offset(condition.direction(), condition.offsetX(), condition.offsetY(), condition.offsetZ());
+                ruleChecks.add(check(key.toString(), offset, condition::testState, stateCount,
+                        slotsByOffset, slotOffsets, statesByCondition, checksByKey, checks));
+            }
+
+            checksByRule[ruleIndex] = ruleChecks.isEmpty()
+                    ? NO_CHECKS
+                    : ruleChecks.stream().distinct().mapToInt(Integer::intValue).toArray();
+        }
+
+        return new NeighborhoodTable(slotOffsets, checks.toArray(new Check[0]), checksByRule, stateCount);
+    }
+
+    private static int check(String conditionKey, int[] offset, Predicate<BlockState> predicate, int stateCount,
+                             Map<String, Integer> slotsByOffset, List<int[]> slotOffsets,
+                             Map<String, long[]> statesByCondition, Map<String, Integer> checksByKey, List<Check> checks) {
+        String offsetKey = offset[0] + "," + offset[1] + "," + offset[2];
+        Integer slot = slotsByOffset.get(offsetKey);
+        if (slot == null) {
+            slot = slotOffsets.size();
+            slotsByOffset.put(offsetKey, slot);
+            slotOffsets.add(offset);
+        }
+
+        String checkKey = slot + "@" + conditionKey;
+        Integer existing = checksByKey.get(checkKey);
+        if (existing != null) {
+            return existing;
+        }
+
+        long[] states = statesByCondition.computeIfAbsent(conditionKey, key -> acceptedStates(predicate, stateCount));
+        checks.add(new Check(slot, states, predicate));
+        checksByKey.put(checkKey, checks.size() - 1);
+        return checks.size() - 1;
+    }
+
+    private static long[] acceptedStates(Predicate<BlockState> predicate, int stateCount) {
+        long[] bits = new long[(stateCount + 63) >>> 6];
+        for (Block block : Registries.BLOCK) {
+            for (BlockState state : block.getStateManager().getStates()) {
+                int stateId = Block.getRawIdFromState(state);
+                if (stateId >= 0 && stateId < stateCount && predicate.test(state)) {
+                    bits[stateId >>> 6] |= 1L << stateId;
+                }
+            }
+        }
+        return bits;
+    }
+
+    private static int[] offset(@Nullable Direction direction, int offsetX, int offsetY, int offsetZ) {
+        if (direction != null) {
+            return new int[]{direction.getOffsetX(), direction.getOffsetY(), direction.getOffsetZ()};
+        }
+        return new int[]{offsetX, offsetY, offsetZ};
+    }
+
+    public int slotCount() {
+        return slotOffsetX.length;
+    }
+
+    public int checkCount() {
+        return checks.length;
+    }
+
+    /**
+     * Whether all neighbor and offset block-state conditions of the rule hold for the block {@code neighborhood}
+     * was reset to.
+     */
+    public boolean matches(int ruleIndex, Neighborhood neighborhood) {
+        int[] ruleChecks = orderedChecksByRule[ruleIndex];
+        if (ruleChecks.length > 1 && ModConfig.getInstance().isAdaptiveRuleOrdering()
+                && neighborhood.sample(SAMPLE_INTERVAL)) {
+            return matchesProfiled(ruleIndex, ruleChecks, neighborhood);
+        }
+
+        for (int checkIndex : ruleChecks) {
+            if (!neighborhood.check(this, checkIndex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates every check of the rule instead of stopping at the first rejection, so each check's rejection rate is
+     * measured independently of the current order.
+     */
+    private boolean matchesProfiled(int ruleIndex, int[] ruleChecks, Neighborhood neighborhood) {
+        boolean matches = true;
+        for (int checkIndex : ruleChecks) {
+            boolean read = !neighborhood.isRead(checks[checkIndex].slot());
+            boolean passed = neighborhood.check(this, checkIndex);
+            checkSamples.incrementAndGet(checkIndex);
+            if (read) {
+                checkReads.incrementAndGet(checkIndex);
+            }
+            if (!passed) {
+                checkRejections.incrementAndGet(checkIndex);
+                matches = false;
+            }
+        }
+        ruleSamples.incrementAndGet(ruleIndex);
+        if (!matches) {
+            ruleRejections.incrementAndGet(ruleIndex);
+        }
+        return matches;
+    }
+
+    /**
+     * Re-sorts every rule's checks by expected cost per rejection, using the samples collected so far. Meant to run
+     * in the background; evaluations keep using the previous order until the new one is published.
+     */
+    public synchronized void reorder() {
+        int[][] ordered = new int[checksByRule.length][];
+        int reordered = 0;
+        double fileChecks = 0;
+        double adaptiveChecks = 0;
+        long totalSamples = 0;
+
+        for (int ruleIndex = 0; ruleIndex < checksByRule.length; ruleIndex++) {
+            int[] fileOrder = checksByRule[ruleIndex];
+            if (fileOrder.length < 2) {
+                ordered[ruleIndex] = fileOrder;
+                continue;
+            }
+
+            // Stable sort, so checks without a difference keep their file order
+            ordered[ruleIndex] = Arrays.stream(fileOrder).boxed()
+                    .sorted(Comparator.comparingDouble(this::rank))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            if (!Arrays.equals(ordered[ruleIndex], fileOrder)) {
+                reordered++;
+            }
+
+            long samples = ruleSamples.get(ruleIndex);
+            fileChecks += samples * expectedChecks(fileOrder);
+            adaptiveChecks += samples * expectedChecks(ordered[ruleIndex]);
+            totalSamples += samples;
+        }
+
+        orderedChecksByRule = ordered;
+        reorderPasses++;
+        reorderedRules = reordered;
+        fileOrderChecks = totalSamples > 0 ? fileChecks / totalSamples : 0;
+        adaptiveOrderChecks = totalSamples > 0 ? adaptiveChecks / totalSamples : 0;
+    }
+
+    /**
+     * Expected cost of the check divided by its probability of rejecting. Unsampled checks get the prior of one read
+     * and an even chance to reject.
+     */
+    private double rank(int checkIndex) {
+        long samples = checkSamples.get(checkIndex);
+        double readRate = (checkReads.get(checkIndex) + 1.0) / (samples + 1.0);
+        double rejectionRate = (checkRejections.get(checkIndex) + 1.0) / (samples + 2.0);
+        return (1 + READ_COST * Math.min(1, readRate)) / rejectionRate;
+    }
+
+    /**
+     * Expected number of checks evaluated until the first rejection, assuming the checks are independent.
+     */
+    private double expectedChecks(int[] order) {
+        double expected = 0;
+        double reached = 1;
+        for (int checkIndex : order) {
+            expected += reached;
+            long samples = checkSamples.get(checkIndex);
+            reached *= samples > 0 ? 1 - (double) checkRejections.get(checkIndex) / samples : 1;
+        }
+        return expected;
+    }
+
+    public synchronized int reorderPasses() {
+        return reorderPasses;
+    }
+
+    public synchronized int reorderedRules() {
+        return reorderedRules;
+    }
+
+    /**
+     * Average number of checks a sampled rule evaluation needs in file order, as of the last {@link #reorder}.
+     */
+    public synchronized double fileOrderChecks() {
+        return fileOrderChecks;
+    }
+
+    /**
+     * Average number of checks a sampled rule evaluation needs in the adaptive order, as of the last {@link #reorder}.
+     */
+    public synchronized double adaptiveOrderChecks() {
+        return adaptiveOrderChecks;
+    }
+
+    /**
+     * Number of profiled rule evaluations.
+     */
+    public long sampledEvaluations() {
+        long total = 0;
+        for (int i = 0; i < ruleSamples.length(); i++) {
+            total += ruleSamples.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Number of profiled rule evaluations that rejected the block.
+     */
+    public long sampledRejections() {
+        long total = 0;
+        for (int i = 0; i < ruleRejections.length(); i++) {
+            total += ruleRejections.get(i);
+        }
+        return total;
+    }
+
+    int offsetX(int slot) {
+        return slotOffsetX[slot];
+    }
+
+    int offsetY(int slot) {
+        return slotOffsetY[slot];
+    }
+
+    int offsetZ(int slot) {
+        return slotOffsetZ[slot];
+    }
+
+    int stateCount() {
+        return stateCount;
+    }
+
+    Check check(int checkIndex) {
+        return checks[checkIndex];
+    }
+
+    /**
+     * One condition at one slot. {@code fallback} evaluates states registered after the table was built.
+     */
+    record Check(int slot, long[] states, Predicate<BlockState> fallback) {
+    }
+}
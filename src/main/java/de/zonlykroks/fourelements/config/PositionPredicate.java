@@ -0,0 +1,81 @@
+package de.zonlykroks.fourelements.config;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * A position condition compiled at load time. Every (axis, kind) pair is its own small class, so the axis and
+ * operator are never looked at again while rendering.
+ */
+@FunctionalInterface
+public interface PositionPredicate {
+    PositionPredicate NEVER = (x, y, z) -> false;
+
+    boolean test(int x, int y, int z);
+
+    /**
+     * Compiles a position condition. Comparison operators become an inclusive range check, {@code %} keeps Java's
+     * remainder semantics (negative coordinates yield negative remainders).
+     *
+     * @throws IllegalArgumentException if the axis, operator or modulo is invalid
+     */
+    static PositionPredicate compile(String axis, String operator, int value, @Nullable Integer modulo) {
+        String normalizedAxis = axis.toLowerCase(Locale.ROOT);
+        if (!normalizedAxis.equals("x") && !normalizedAxis.equals("y") && !normalizedAxis.equals("z")) {
+            throw new IllegalArgumentException("Invalid axis: " + axis);
+        }
+
+        if (operator.equals("%")) {
+            if (modulo == null) {
+                throw new IllegalArgumentException("Operator % requires a modulo");
+            }
+            if (modulo == 0) {
+                throw new IllegalArgumentException("Modulo must not be 0");
+            }
+            int m = modulo;
+            return switch (normalizedAxis) {
+                case "x" -> (x, y, z) -> x % m == value;
+                case "y" -> (x, y, z) -> y % m == value;
+                default -> (x, y, z) -> z % m == value;
+            };
+        }
+
+        long min;
+        long max;
+        switch (operator) {
+            case "==" -> {
+                min = value;
+                max = value;
+            }
+            case ">" -> {
+                min = (long) value + 1;
+                max = Integer.MAX_VALUE;
+            }
+            case "<" -> {
+                min = Integer.MIN_VALUE;
+                max = (long) value - 1;
+            }
+            case ">=" -> {
+                min = value;
+                max = Integer.MAX_VALUE;
+            }
+            case "<=" -> {
+                min = Integer.MIN_VALUE;
+                max = value;
+            }
+            default -> throw new IllegalArgumentException("Invalid operator: " + operator);
+        }
+
+        if (min > max) {
+            return NEVER;
+        }
+        int lo = (int) min;
+        int hi = (int) max;
+        return switch (normalizedAxis) {
+            case "x" -> (x, y, z) -> x >= lo && x <= hi;
+            case "y" -> (x, y, z) -> y >= lo && y <= hi;
+            default -> (x, y, z) -> z >= lo && z <= hi;
+        };
+    }
+}
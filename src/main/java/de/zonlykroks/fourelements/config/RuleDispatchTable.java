@@ -0,0 +1,258 @@
+package de.zonlykroks.fourelements.config;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps every registered block to the indices of the rules whose {@code targetBlocks} can match it,
+ * in file order. Built once per config load so a lookup only has to visit rules that apply to the block.
+ * <p>
+ * Each rule also gets a bitset over the global block-state ids ({@link Block#STATE_IDS}) holding the states that
+ * pass both its {@code targetBlocks} and its own-position {@code blockStateConditions}. State ids change when the
+ * registry is remapped, so the table must then be rebuilt.
+ * <p>
+ * {@code #namespace:tag} targets are resolved into the per-block rule lists here as well, so tag membership is never
+ * looked up while rendering. Tables built before the registry's tags are bound cannot resolve them yet; such a table
+ * reports every block as targeted so that models are still wrapped, and is rebuilt once tags load.
+ */
+public final class RuleDispatchTable {
+    private static final int[] NO_RULES = new int[0];
+
+    private final List<TextureReplacementRule> rules;
+    private final Map<Block, int[]> ruleIndicesByBlock;
+    private final long[][] stateBits;
+    /** Union of {@link #stateBits}: the states at least one rule can accept. */
+    private final long[] replaceableStates;
+    private final int stateCount;
+    private final NeighborhoodTable neighborhood;
+    private final boolean tagsBound;
+    private final boolean unresolvedTags;
+    private final int neighborRadius;
+    private final int nearestRuleDistance;
+    private final int farthestRuleDistance;
+    private final int[] ruleDistances;
+
+    private RuleDispatchTable(List<TextureReplacementRule> rules, Map<Block, int[]> ruleIndicesByBlock,
+                              long[][] stateBits, int stateCount, boolean tagsBound) {
+        this.rules = rules;
+        this.ruleIndicesByBlock = ruleIndicesByBlock;
+        this.stateBits = stateBits;
+        this.stateCount = stateCount;
+        this.replaceableStates = new long[(stateCount + 63) >>> 6];
+        for (long[] bits : stateBits) {
+            for (int i = 0; i < replaceableStates.length; i++) {
+                replaceableStates[i] |= bits[i];
+            }
+        }
+        this.neighborhood = NeighborhoodTable.build(rules, stateCount);
+        this.tagsBound = tagsBound;
+        this.unresolvedTags = !tagsBound && rules.stream().anyMatch(TextureReplacementRule::hasTagTargets);
+        int radius = 0;
+        for (TextureReplacementRule rule : rules) {
+            radius = Math.max(radius, rule.neighborRadius());
+        }
+        this.neighborRadius = radius;
+
+        this.ruleDistances = rules.stream().mapToInt(TextureReplacementRule::maxDistance)
+                .filter(distance -> distance > 0).distinct().sorted().toArray();
+        this.nearestRuleDistance = ruleDistances.length > 0 ? ruleDistances[0] : Integer.MAX_VALUE;
+        this.farthestRuleDistance = rules.stream().anyMatch(rule -> rule.maxDistance() == 0)
+                ? Integer.MAX_VALUE
+                : ruleDistances.length > 0 ? ruleDistances[ruleDistances.length - 1] : 0;
+    }
+
+    public static RuleDispatchTable build(List<TextureReplacementRule> rules, boolean tagsBound) {
+        Map<Block, int[]> table = new IdentityHashMap<>();
+        int stateCount = Block.STATE_IDS.size();
+        long[][] stateBits = new long[rules.size()][(stateCount + 63) >>> 6];
+
+        for (Block block : Registries.BLOCK) {
+            int[] indices = resolve(rules, block, tagsBound);
+            table.put(block, indices);
+            if (indices.length == 0) {
+                continue;
+            }
+
+            for (BlockState state : block.getStateManager().getStates()) {
+                int stateId = Block.getRawIdFromState(state);
+                if (stateId < 0 || stateId >= stateCount) {
+                    continue;
+                }
+                for (int ruleIndex : indices) {
+                    if (rules.get(ruleIndex).matchesOwnState(state)) {
+                        stateBits[ruleIndex][stateId >>> 6] |= 1L << stateId;
+                    }
+                }
+            }
+        }
+        return new RuleDispatchTable(rules, table, stateBits, stateCount, tagsBound);
+    }
+
+    public static RuleDispatchTable empty() {
+        return new RuleDispatchTable(List.of(), new IdentityHashMap<>(), new long[0][], 0, true);
+    }
+
+    /**
+     * Rebuilds the table for the same rules against the current registry, state ids and tags.
+     */
+    public RuleDispatchTable rebuild(boolean tagsBound) {
+        return build(rules, tagsBound);
+    }
+
+    private static int[] resolve(List<TextureReplacementRule> rules, Block block, boolean tagsBound) {
+        int[] indices = new int[rules.size()];
+        int count = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).targetsBlock(block, tagsBound)) {
+                indices[count++] = i;
+            }
+        }
+        return count == 0 ? NO_RULES : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Returns the indices of the rules that can apply to {@code block}, in file order.
+     * The returned array must not be modified.
+     */
+    public int[] rulesFor(Block block) {
+        int[] indices = ruleIndicesByBlock.get(block);
+        if (indices != null) {
+            return indices;
+        }
+        // Blocks registered after the table was built are resolved on the fly
+        return resolve(rules, block, tagsBound);
+    }
+
+    /**
+     * Whether the rule accepts the block state by its {@code targetBlocks} and own-position
+     * {@code blockStateConditions}. {@code stateId} must be the raw id of {@code state}.
+     */
+    public boolean acceptsState(int ruleIndex, BlockState state, int stateId) {
+        if (stateId >= 0 && stateId < stateCount) {
+            return (stateBits[ruleIndex][stateId >>> 6] & 1L << stateId) != 0;
+        }
+        // State registered after the table was built
+        TextureReplacementRule rule = rules.get(ruleIndex);
+        return rule.targetsBlock(state.getBlock(), tagsBound) && rule.matchesOwnState(state);
+    }
+
+    /**
+     * Whether some rule accepts {@code state} by its {@code targetBlocks} and own-position
+     * {@code blockStateConditions}, i.e. whether a block in this state can receive a replacement at all.
+     * {@code stateId} must be the raw id of {@code state}.
+     */
+    public boolean isReplaceable(BlockState state, int stateId) {
+        if (stateId >= 0 && stateId < stateCount) {
+            return (replaceableStates[stateId >>> 6] & 1L << stateId) != 0;
+        }
+        for (int ruleIndex : rulesFor(state.getBlock())) {
+            if (acceptsState(ruleIndex, state, stateId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any rule can match {@code state}. States for which this is false never need a wrapped model.
+     * Always true while tag targets are unresolved.
+     */
+    public boolean targets(BlockState state) {
+        return unresolvedTags || isReplaceable(state, Block.getRawIdFromState(state));
+    }
+
+    /**
+     * Whether every state targeted by {@code other} is targeted by this table too, i.e. whether models wrapped for
+     * this table are still correct for the other. Both tables must be built against the current state ids.
+     */
+    public boolean coversTargetsOf(RuleDispatchTable other) {
+        if (unresolvedTags) {
+            return true;
+        }
+        if (other.unresolvedTags) {
+            return false;
+        }
+        for (Block block : Registries.BLOCK) {
+            if (other.rulesFor(block).length == 0) {
+                continue;
+            }
+            for (BlockState state : block.getStateManager().getStates()) {
+                if (other.targets(state) && !targets(state)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether some rule has tag targets that could not be resolved yet, so {@link #targets} accepts every state.
+     */
+    public boolean hasUnresolvedTags() {
+        return unresolvedTags;
+    }
+
+    /**
+     * Whether the table was built with the registry's tags bound.
+     */
+    public boolean tagsBound() {
+        return tagsBound;
+    }
+
+    /**
+     * The smallest {@link TextureReplacementRule#maxDistance()} of all rules, or {@link Integer#MAX_VALUE} if no rule
+     * is limited. Closer sections can use every rule.
+     */
+    public int nearestRuleDistance() {
+        return nearestRuleDistance;
+    }
+
+    /**
+     * The distance in chunks beyond which no rule applies, or {@link Integer#MAX_VALUE} if some rule is unlimited.
+     */
+    public int farthestRuleDistance() {
+        return farthestRuleDistance;
+    }
+
+    /**
+     * The distinct positive {@link TextureReplacementRule#maxDistance()} values, ascending. The array must not be
+     * modified.
+     */
+    public int[] ruleDistances() {
+        return ruleDistances;
+    }
+
+    public List<TextureReplacementRule> rules() {
+        return rules;
+    }
+
+    /**
+     * The neighbor and offset block-state conditions of all rules, compiled for one read per neighbor.
+     */
+    public NeighborhoodTable neighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * The largest {@link TextureReplacementRule#neighborRadius()} of all rules.
+     */
+    public int neighborRadius() {
+        return neighborRadius;
+    }
+
+    public int targetedBlockCount() {
+        int count = 0;
+        for (int[] indices : ruleIndicesByBlock.values()) {
+            if (indices.length > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -20,13 +20,21 @@ public class TextureReplacementConfig {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final Path CONFIG_DIR = FabricLoader.getInstance().getConfigDir().resolve("fourelements");
 
-    private volatile List<TextureReplacementRule> rules = new ArrayList<>();
+    /** Rule indices are stored as {@code short} in caches and lookup tables. */
+    public static final int MAX_RULES = Short.MAX_VALUE;
+
+    private volatile RuleDispatchTable dispatchTable = RuleDispatchTable.empty();
+    private volatile boolean tagsBound;
 
     public void load() {
         load(ModConfig.getInstance().getPresetRulesFile());
     }
 
-    public void load(Path configFile) {
+    /**
+     * Synchronized with {@link #rebuildDispatchTable()}, so a rebuild can never replace a freshly loaded table with
+     * one built from the previous rules.
+     */
+    public synchronized void load(Path configFile) {
         try {
             Path presetDir = configFile.getParent();
             if (!Files.exists(presetDir)) {
@@ -52,15 +60,27 @@ public class TextureReplacementConfig {
             // Build new list atomically to avoid concurrent modification
             List<TextureReplacementRule> newRules = new ArrayList<>();
             for (int i = 0; i < rulesArray.size(); i++) {
-                JsonObject ruleJson = rulesArray.get(i).getAsJsonObject();
-                TextureReplacementRule rule = parseRule(ruleJson);
-                newRules.add(rule);
+                if (newRules.size() == MAX_RULES) {
+                    LOGGER.error("Ignoring {} texture replacement rules in {}, at most {} rules are supported",
+                            rulesArray.size() - i, configFile.getFileName(), MAX_RULES);
+                    break;
+                }
+                try {
+                    JsonObject ruleJson = rulesArray.get(i).getAsJsonObject();
+                    newRules.add(parseRule(ruleJson));
+                } catch (RuntimeException e) {
+                    // Conditions are compiled here, so malformed rules fail now instead of while rendering
+                    LOGGER.error("Skipping invalid texture replacement rule #{} in {}: {}",
+                            i, configFile.getFileName(), e.getMessage());
+                }
             }
 
-            // Atomically replace the rules list
-            this.rules = Collections.unmodifiableList(newRules);
+            // Resolve targets against the block registry once and atomically replace the rules with their dispatch table
+            RuleDispatchTable newTable = RuleDispatchTable.build(Collections.unmodifiableList(newRules), tagsBound);
+            this.dispatchTable = newTable;
 
-            LOGGER.info("Loaded {} texture replacement rules from {}", rules.size(), configFile.getFileName());
+            LOGGER.info("Loaded {} texture replacement rules from {} ({} blocks targeted)",
+                    newTable.rules().size(), configFile.getFileName(), newTable.targetedBlockCount());
         } catch (IOException e) {
             LOGGER.error("Failed to load texture replacement config from {}", configFile, e);
         }
@@ -103,8 +123,10 @@ public class TextureReplacementConfig {
         }
 
         String replacementTexture = json.get("replacementTexture").getAsString();
+        int maxDistance = json.has("maxDistance") ? json.get("maxDistance").getAsInt() : 0;
 
-        return new TextureReplacementRule(targetBlocks, positionConditions, neighborConditions, blockStateConditions, replacementTexture);
+        return new TextureReplacementRule(targetBlocks, positionConditions, neighborConditions, blockStateConditions,
+                replacementTexture, maxDistance);
     }
 
     private void createDefaultConfig(Path configFile) throws IOException {
@@ -115,7 +137,26 @@ public class TextureReplacementConfig {
         Files.writeString(configFile, GSON.toJson(root));
     }
 
+    /**
+     * Rebuilds the dispatch table for the loaded rules, e.g. after the block registry was remapped.
+     */
+    public synchronized void rebuildDispatchTable() {
+        this.dispatchTable = dispatchTable.rebuild(tagsBound);
+    }
+
+    /**
+     * Resolves {@code #namespace:tag} targets now that the block registry's tags are bound.
+     */
+    public synchronized void onTagsLoaded() {
+        this.tagsBound = true;
+        rebuildDispatchTable();
+    }
+
     public List<TextureReplacementRule> getRules() {
-        return rules;
+        return dispatchTable.rules();
+    }
+
+    public RuleDispatchTable getDispatchTable() {
+        return dispatchTable;
     }
 }
\ No newline at end of file
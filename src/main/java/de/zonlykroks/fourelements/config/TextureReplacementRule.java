@@ -1,13 +1,15 @@
 package de.zonlykroks.fourelements.config;
 
 import com.google.gson.JsonObject;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.texture.SpriteAtlasTexture;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.TagKey;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
-import net.minecraft.world.BlockRenderView;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +19,8 @@ import java.util.List;
 
 public record TextureReplacementRule(List<String> targetBlocks, List<PositionCondition> positionConditions,
                                      List<NeighborCondition> neighborConditions, List<BlockStateCondition> blockStateConditions,
-                                     String replacementTexture, Identifier parsedTextureId) {
+                                     String replacementTexture, Identifier parsedTextureId,
+                                     List<TagKey<Block>> targetTags, int maxDistance) {
     private static final Logger LOGGER = LoggerFactory.getLogger("FourElements");
 
     public TextureReplacementRule(List<String> targetBlocks,
@@ -25,12 +28,47 @@ public record TextureReplacementRule(List<String> targetBlocks, List<PositionCon
                                   List<NeighborCondition> neighborConditions,
                                   List<BlockStateCondition> blockStateConditions,
                                   String replacementTexture) {
+        this(targetBlocks, positionConditions, neighborConditions, blockStateConditions, replacementTexture, 0);
+    }
+
+    /**
+     * @param maxDistance distance in chunks from the camera beyond which the rule is not applied, or 0 for no limit
+     */
+    public TextureReplacementRule(List<String> targetBlocks,
+                                  List<PositionCondition> positionConditions,
+                                  List<NeighborCondition> neighborConditions,
+                                  List<BlockStateCondition> blockStateConditions,
+                                  String replacementTexture, int maxDistance) {
         this(targetBlocks != null ? targetBlocks : new ArrayList<>(),
              positionConditions != null ? positionConditions : new ArrayList<>(),
              neighborConditions != null ? neighborConditions : new ArrayList<>(),
              blockStateConditions != null ? blockStateConditions : new ArrayList<>(),
              replacementTexture,
-             parseTextureIdentifier(replacementTexture));
+             parseTextureIdentifier(replacementTexture),
+             parseTargetTags(targetBlocks),
+             Math.max(0, maxDistance));
+    }
+
+    /**
+     * Parses the {@code #namespace:tag} entries of {@code targetBlocks}.
+     *
+     * @throws IllegalArgumentException if a tag id is invalid
+     */
+    private static List<TagKey<Block>> parseTargetTags(@Nullable List<String> targetBlocks) {
+        List<TagKey<Block>> tags = new ArrayList<>();
+        if (targetBlocks == null) {
+            return tags;
+        }
+        for (String target : targetBlocks) {
+            if (target.startsWith("#")) {
+                Identifier id = Identifier.tryParse(target.substring(1));
+                if (id == null) {
+                    throw new IllegalArgumentException("Invalid block tag: " + target);
+                }
+                tags.add(TagKey.of(RegistryKeys.BLOCK, id));
+            }
+        }
+        return tags;
     }
 
     private static Identifier parseTextureIdentifier(String textureId) {
@@ -57,39 +95,71 @@ public record TextureReplacementRule(List<String> targetBlocks, List<PositionCon
         }
     }
 
-    public boolean matches(BlockRenderView world, BlockPos pos, BlockState state) {
-        if (!targetBlocks.isEmpty()) {
-            String translationKey = state.getBlock().getTranslationKey();
-            boolean matchesAny = false;
-            for (String target : targetBlocks) {
-                if (translationKey.contains(target)) {
-                    matchesAny = true;
-                    break;
+    /**
+     * Whether {@code targetBlocks} accepts the block, either through a translation-key substring or a
+     * {@code #namespace:tag} entry. An empty target list accepts every block. While {@code tagsBound} is false the
+     * block registry has no tags yet and tag entries match nothing.
+     */
+    public boolean targetsBlock(Block block, boolean tagsBound) {
+        if (targetsTranslationKey(block.getTranslationKey())) {
+            return true;
+        }
+        if (tagsBound) {
+            for (TagKey<Block> tag : targetTags) {
+                if (block.getDefaultState().isIn(tag)) {
+                    return true;
                 }
             }
-            if (!matchesAny) {
-                return false;
-            }
         }
+        return false;
+    }
 
-        for (PositionCondition condition : positionConditions) {
-            if (!condition.test(pos)) {
-                return false;
+    /**
+     * Whether the translation-key entries of {@code targetBlocks} accept a block with the given translation key.
+     * An empty target list accepts every block; tag entries are ignored here.
+     */
+    public boolean targetsTranslationKey(String translationKey) {
+        if (targetBlocks.isEmpty()) {
+            return true;
+        }
+        for (String target : targetBlocks) {
+            if (!target.startsWith("#") && translationKey.contains(target)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    public boolean hasTagTargets() {
+        return !targetTags.isEmpty();
+    }
+
+    /**
+     * Whether the rule applies to sections {@code distance} chunks away from the camera.
+     */
+    public boolean withinDistance(int distance) {
+        return maxDistance == 0 || distance <= maxDistance;
+    }
 
+    /**
+     * Tests the {@code blockStateConditions} that look at the block itself. Their result only depends on the state,
+     * so {@link RuleDispatchTable} precomputes it per state id.
+     */
+    public boolean matchesOwnState(BlockState state) {
         for (BlockStateCondition condition : blockStateConditions) {
-            if (!condition.test(world, pos)) {
+            if (condition.isOwnPosition() && !condition.test(state)) {
                 return false;
             }
         }
+        return true;
+    }
 
-        for (NeighborCondition condition : neighborConditions) {
-            if (!condition.test(world, pos)) {
+    public boolean matchesPosition(int x, int y, int z) {
+        for (PositionCondition condition : positionConditions) {
+            if (!condition.predicate().test(x, y, z)) {
                 return false;
             }
         }
-
         return true;
     }
 
@@ -114,38 +184,39 @@ public record TextureReplacementRule(List<String> targetBlocks, List<PositionCon
         return null;
     }
 
-    public boolean hasNeighborConditions() {
-        return !neighborConditions.isEmpty();
+    /**
+     * The largest distance (per axis) at which this rule looks at another block, or 0 if it only depends on the
+     * block itself. A change to a block can only affect rule results within this distance of it.
+     */
+    public int neighborRadius() {
+        int radius = 0;
+        for (NeighborCondition condition : neighborConditions) {
+            radius = Math.max(radius, reach(condition.direction(), condition.offsetX(), condition.offsetY(), condition.offsetZ()));
+        }
+        for (BlockStateCondition condition : blockStateConditions) {
+            radius = Math.max(radius, reach(condition.direction(), condition.offsetX(), condition.offsetY(), condition.offsetZ()));
+        }
+        return radius;
+    }
+
+    private static int reach(@Nullable Direction direction, int offsetX, int offsetY, int offsetZ) {
+        if (direction != null) {
+            return 1;
+        }
+        return Math.max(Math.abs(offsetX), Math.max(Math.abs(offsetY), Math.abs(offsetZ)));
     }
 
-    public record PositionCondition(String axis, String operator, int value, Integer modulo) {
+    public record PositionCondition(String axis, String operator, int value, Integer modulo,
+                                    PositionPredicate predicate) {
+        /**
+         * @throws IllegalArgumentException if the condition cannot be compiled
+         */
         public PositionCondition(String axis, String operator, int value, @Nullable Integer modulo) {
-            this.axis = axis;
-            this.operator = operator;
-            this.value = value;
-            this.modulo = modulo;
+            this(axis, operator, value, modulo, PositionPredicate.compile(axis, operator, value, modulo));
         }
 
         public boolean test(BlockPos pos) {
-            int coordinate = switch (axis.toLowerCase()) {
-                case "x" -> pos.getX();
-                case "y" -> pos.getY();
-                case "z" -> pos.getZ();
-                default -> throw new IllegalArgumentException("Invalid axis: " + axis);
-            };
-
-            if (operator.equals("%") && modulo != null) {
-                return coordinate % modulo == value;
-            }
-
-            return switch (operator) {
-                case "==" -> coordinate == value;
-                case ">" -> coordinate > value;
-                case "<" -> coordinate < value;
-                case ">=" -> coordinate >= value;
-                case "<=" -> coordinate <= value;
-                default -> throw new IllegalArgumentException("Invalid operator: " + operator);
-            };
+            return predicate.test(pos.getX(), pos.getY(), pos.getZ());
         }
 
         public static PositionCondition fromJson(JsonObject json) {
@@ -169,15 +240,10 @@ public record TextureReplacementRule(List<String> targetBlocks, List<PositionCon
             this.blockStateConditions = blockStateConditions != null ? blockStateConditions : new ArrayList<>();
         }
 
-        public boolean test(BlockRenderView world, BlockPos pos) {
-            BlockPos checkPos;
-            if (direction != null) {
-                checkPos = pos.offset(direction);
-            } else {
-                checkPos = pos.add(offsetX, offsetY, offsetZ);
-            }
-
-            BlockState neighborState = world.getBlockState(checkPos);
+        /**
+         * Tests the neighbor's state, once it has been read from the offset.
+         */
+        public boolean testState(BlockState neighborState) {
             String neighborId = neighborState.getBlock().getTranslationKey();
 
             if (!neighborId.contains(targetBlock)) {
@@ -218,43 +284,25 @@ public record TextureReplacementRule(List<String> targetBlocks, List<PositionCon
     }
 
     public record BlockStateCondition(String property, String value, @Nullable Direction direction,
-                                      int offsetX, int offsetY, int offsetZ) {
+                                      int offsetX, int offsetY, int offsetZ, BlockStatePredicate predicate) {
         public BlockStateCondition(String property, String value) {
             this(property, value, null, 0, 0, 0);
         }
 
         public BlockStateCondition(String property, String value, @Nullable Direction direction,
                                   int offsetX, int offsetY, int offsetZ) {
-            this.property = property;
-            this.value = value;
-            this.direction = direction;
-            this.offsetX = offsetX;
-            this.offsetY = offsetY;
-            this.offsetZ = offsetZ;
+            this(property, value, direction, offsetX, offsetY, offsetZ, BlockStatePredicate.compile(property, value));
         }
 
         public boolean test(BlockState state) {
-            for (var prop : state.getProperties()) {
-                if (prop.getName().equals(this.property)) {
-                    var currentValue = state.get(prop);
-                    return currentValue.toString().equalsIgnoreCase(value);
-                }
-            }
-            return false;
+            return predicate.test(state);
         }
 
-        public boolean test(BlockRenderView world, BlockPos pos) {
-            BlockPos checkPos;
-            if (direction != null) {
-                checkPos = pos.offset(direction);
-            } else if (offsetX != 0 || offsetY != 0 || offsetZ != 0) {
-                checkPos = pos.add(offsetX, offsetY, offsetZ);
-            } else {
-                checkPos = pos;
-            }
-
-            BlockState state = world.getBlockState(checkPos);
-            return test(state);
+        /**
+         * Whether this condition checks the block itself rather than a neighbor.
+         */
+        public boolean isOwnPosition() {
+            return direction == null && offsetX == 0 && offsetY == 0 && offsetZ == 0;
         }
 
         public static BlockStateCondition fromJson(JsonObject json) {
@@ -58,7 +58,7 @@ public class ModMenuImpl implements ModMenuApi {
                                 .description(OptionDescription.of(Text.literal("Performance-related settings")))
                                 .option(Option.<Integer>createBuilder()
                                         .name(Text.literal("Cache Size"))
-                                        .description(OptionDescription.of(Text.literal("Maximum number of cached sprite replacements (requires restart)")))
+                                        .description(OptionDescription.of(Text.literal("Maximum number of cached sprite replacements (applied on save)")))
                                         .binding(
                                                 4096,
                                                 config::getCacheSize,
@@ -68,6 +68,28 @@ public class ModMenuImpl implements ModMenuApi {
                                                 .range(512, 16384)
                                                 .step(512))
                                         .build())
+                                .option(Option.<Integer>createBuilder()
+                                        .name(Text.literal("Replacement Distance"))
+                                        .description(OptionDescription.of(Text.literal("Chunks from the camera beyond which textures are not replaced (0 = unlimited)")))
+                                        .binding(
+                                                0,
+                                                config::getReplacementDistance,
+                                                config::setReplacementDistance
+                                        )
+                                        .controller(opt -> IntegerSliderControllerBuilder.create(opt)
+                                                .range(0, 32)
+                                                .step(1))
+                                        .build())
+                                .option(Option.<Boolean>createBuilder()
+                                        .name(Text.literal("Adaptive Rule Ordering"))
+                                        .description(OptionDescription.of(Text.literal("Profile neighbor conditions and check the most selective ones first (results are unchanged)")))
+                                        .binding(
+                                                false,
+                                                config::isAdaptiveRuleOrdering,
+                                                config::setAdaptiveRuleOrdering
+                                        )
+                                        .controller(TickBoxControllerBuilder::create)
+                                        .build())
                                 .option(Option.<Boolean>createBuilder()
                                         .name(Text.literal("Enable Cache Statistics"))
                                         .description(OptionDescription.of(Text.literal("Log cache hit/miss statistics (may impact performance slightly)")))
@@ -0,0 +1,55 @@
+package de.zonlykroks.fourelements.mixin;
+
+import de.zonlykroks.fourelements.client.RegionSectionStates;
+import de.zonlykroks.fourelements.client.RegionSnapshotEpoch;
+import de.zonlykroks.fourelements.client.RenderedSectionStates;
+import de.zonlykroks.fourelements.client.TextureReplacementManager;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.chunk.ChunkRendererRegion;
+import net.minecraft.client.render.chunk.RenderedChunk;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.PalettedContainer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.Predicate;
+
+/**
+ * Stamps every chunk-builder region with the invalidation epoch it was created in, so a rebuild that outlives a block
+ * change does not cache results read from blocks that changed since. Also keeps the region's section copies, so a
+ * rebuild can check a section's palette before reading its blocks.
+ */
+@Mixin(ChunkRendererRegion.class)
+public abstract class ChunkRendererRegionMixin implements RegionSnapshotEpoch, RegionSectionStates {
+    @Unique
+    private long fourelements$snapshotEpoch;
+    @Unique
+    private RenderedChunk[] fourelements$sections;
+
+    @Inject(method = "<init>", at = @At("TAIL"))
+    private void fourelements$stampEpoch(World world, int minSectionX, int minSectionY, int minSectionZ,
+                                         RenderedChunk[] sections, CallbackInfo ci) {
+        fourelements$snapshotEpoch = TextureReplacementManager.getInstance().currentInvalidationEpoch();
+        fourelements$sections = sections;
+    }
+
+    @Override
+    public long fourelements$snapshotEpoch() {
+        return fourelements$snapshotEpoch;
+    }
+
+    @Override
+    public boolean fourelements$mayContain(long sectionKey, Predicate<BlockState> predicate) {
+        // A region only holds the 27 sections around the one being meshed, so a scan is cheaper than indexing
+        for (RenderedChunk section : fourelements$sections) {
+            if (section != null && ((RenderedSectionStates) (Object) section).fourelements$sectionKey() == sectionKey) {
+                PalettedContainer<BlockState> states = ((RenderedSectionStates) (Object) section).fourelements$blockStates();
+                return states != null && states.hasAny(predicate);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package de.zonlykroks.fourelements.mixin;
+
+import de.zonlykroks.fourelements.client.TextureReplacementManager;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Tells the replacement engine about block changes, so cached results of neighbor-dependent rules are dropped
+ * before the affected sections are re-meshed.
+ */
+@Mixin(ClientWorld.class)
+public abstract class ClientWorldMixin {
+    @Inject(method = "updateListeners", at = @At("HEAD"))
+    private void fourelements$onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState, int flags,
+                                             CallbackInfo ci) {
+        TextureReplacementManager.getInstance().onBlockChanged(pos);
+    }
+}
@@ -0,0 +1,50 @@
+package de.zonlykroks.fourelements.mixin;
+
+import com.llamalad7.mixinextras.injector.ModifyExpressionValue;
+import de.zonlykroks.fourelements.client.RenderedSectionStates;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.chunk.RenderedChunk;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Keeps the block-state container a section copy takes for the chunk builder, together with the section it belongs
+ * to, so the replacement engine can check the section's palette without reading its blocks.
+ */
+@Mixin(RenderedChunk.class)
+public abstract class RenderedChunkMixin implements RenderedSectionStates {
+    @Unique
+    private @Nullable PalettedContainer<BlockState> fourelements$blockStates;
+    @Unique
+    private long fourelements$sectionKey;
+
+    @ModifyExpressionValue(method = "<init>", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/world/chunk/PalettedContainer;copy()Lnet/minecraft/world/chunk/PalettedContainer;"))
+    private PalettedContainer<BlockState> fourelements$keepBlockStates(PalettedContainer<BlockState> copy) {
+        fourelements$blockStates = copy;
+        return copy;
+    }
+
+    @Inject(method = "<init>", at = @At("TAIL"))
+    private void fourelements$keepSection(WorldChunk chunk, int sectionIndex, CallbackInfo ci) {
+        fourelements$sectionKey = ChunkSectionPos.asLong(chunk.getPos().x, chunk.sectionIndexToCoord(sectionIndex),
+                chunk.getPos().z);
+    }
+
+    @Override
+    public long fourelements$sectionKey() {
+        return fourelements$sectionKey;
+    }
+
+    @Override
+    public @Nullable PalettedContainer<BlockState> fourelements$blockStates() {
+        return fourelements$blockStates;
+    }
+}